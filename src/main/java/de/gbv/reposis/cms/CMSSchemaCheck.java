@@ -0,0 +1,83 @@
+package de.gbv.reposis.cms;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.config.MCRConfigurationException;
+import org.mycore.common.events.MCRStartupHandler.AutoExecutable;
+
+import de.gbv.reposis.cms.service.CMSSchemaMigration;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.servlet.ServletContext;
+
+/**
+ * Checks at startup whether the CMS tables need migration steps before they can be written, see
+ * {@link CMSSchemaMigration#getPendingSteps()}. With <code>MCR.CMS.Schema.AutoMigrate=true</code> all pending steps
+ * are run, otherwise an error naming the steps and the CLI command <code>cms migrate schema</code> is logged and
+ * writing pages fails until the command was run. With <code>MCR.CMS.Schema.FailOnPendingSteps=true</code> the web
+ * application does not start instead; the command line interface always starts, so the command can be run.
+ */
+public class CMSSchemaCheck implements AutoExecutable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String PROPERTY_AUTO_MIGRATE = "MCR.CMS.Schema.AutoMigrate";
+
+    private static final String PROPERTY_FAIL_ON_PENDING_STEPS = "MCR.CMS.Schema.FailOnPendingSteps";
+
+    @Override
+    public String getName() {
+        return "CMS schema check";
+    }
+
+    @Override
+    public int getPriority() {
+        // before the REST API is deployed
+        return 1;
+    }
+
+    @Override
+    public void startUp(ServletContext servletContext) {
+        EntityManagerFactory factory = MCREntityManagerProvider.getEntityManagerFactory();
+        if (factory == null) {
+            LOGGER.info("JPA is not enabled, skipping CMS schema check");
+            return;
+        }
+        boolean autoMigrate = MCRConfiguration2.getBoolean(PROPERTY_AUTO_MIGRATE).orElse(false);
+        try (EntityManager em = factory.createEntityManager()) {
+            EntityTransaction transaction = em.getTransaction();
+            transaction.begin();
+            try {
+                CMSSchemaMigration migration = new CMSSchemaMigration();
+                List<String> pending = migration.getPendingSteps(em);
+                if (pending.isEmpty()) {
+                    transaction.commit();
+                    return;
+                }
+                if (autoMigrate) {
+                    migration.migrate(em).forEach(step -> LOGGER.info("Applied migration: {}", step));
+                    transaction.commit();
+                    return;
+                }
+                transaction.rollback();
+                String message = "The CMS tables need migration before pages can be written, run the CLI command"
+                    + " 'cms migrate schema' or set " + PROPERTY_AUTO_MIGRATE + "=true. Pending: "
+                    + String.join("; ", pending);
+                if (servletContext != null
+                    && MCRConfiguration2.getBoolean(PROPERTY_FAIL_ON_PENDING_STEPS).orElse(false)) {
+                    throw new MCRConfigurationException(message);
+                }
+                LOGGER.error(message);
+            } finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        }
+    }
+}
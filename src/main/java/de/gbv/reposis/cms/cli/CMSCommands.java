@@ -4,7 +4,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,9 +17,21 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.cache.CacheStats;
 
 import de.gbv.reposis.cms.dto.CMSPageExportDTO;
+import de.gbv.reposis.cms.service.CMSContentStore;
+import de.gbv.reposis.cms.service.CMSLanguageRegistry;
 import de.gbv.reposis.cms.service.CMSPageService;
+import de.gbv.reposis.cms.service.CMSPermissionCache;
+import de.gbv.reposis.cms.service.CMSPermissionService;
+import de.gbv.reposis.cms.service.CMSPublishedContentCache;
+import de.gbv.reposis.cms.service.CMSSchemaMigration;
+import de.gbv.reposis.cms.service.CMSSearchIndex;
+import de.gbv.reposis.cms.service.CMSSlugTree;
+import de.gbv.reposis.cms.service.CMSVersionCache;
+import de.gbv.reposis.cms.service.CMSVersionDiffCache;
+import de.gbv.reposis.cms.service.CMSVersionRetention;
 
 @MCRCommandGroup(name = "cms")
 public class CMSCommands {
@@ -26,6 +40,8 @@ public class CMSCommands {
 
     private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
 
+    private static final int RECOMPRESSION_BATCH_SIZE = 1000;
+
     private static ObjectMapper createObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
@@ -135,4 +151,120 @@ public class CMSCommands {
             LOGGER.warn("No pages found with slug prefix '{}'", () -> slugPrefix);
         }
     }
+
+    @MCRCommand(syntax = "cms initialize page heads",
+        help = "Fill the latest version columns of CMS pages created before these columns were introduced")
+    public static void initializePageHeads() {
+        CMSPageService pageService = new CMSPageService();
+        int count = pageService.initializePageHeads();
+        LOGGER.info("Initialized latest version columns of {} pages", () -> count);
+    }
+
+    @MCRCommand(syntax = "cms migrate schema",
+        help = "Migrate the data of existing CMS tables to the current schema. Run after updating the schema.")
+    public static void migrateSchema() {
+        List<String> applied = new CMSSchemaMigration().migrate();
+        if (applied.isEmpty()) {
+            LOGGER.info("CMS schema is up to date");
+        } else {
+            applied.forEach(step -> LOGGER.info("Applied migration: {}", step));
+        }
+        CMSPublishedContentCache.getInstance().invalidateAll();
+        CMSVersionCache.getInstance().invalidateAll();
+    }
+
+    @MCRCommand(syntax = "cms recompress contents",
+        help = "Compress or decompress all stored CMS contents according to MCR.CMS.Content.Compression.*,"
+            + " in batches of " + RECOMPRESSION_BATCH_SIZE + " contents with one transaction each")
+    public static List<String> recompressContents() {
+        return recompressContentsAfter(0);
+    }
+
+    @MCRCommand(syntax = "cms recompress contents after id {0}",
+        help = "Compress or decompress the stored CMS contents with IDs above {0} in batches,"
+            + " used by cms recompress contents")
+    public static List<String> recompressContentsAfter(long afterId) {
+        CMSSchemaMigration.RecompressionBatch batch = new CMSSchemaMigration()
+            .recompressContents(afterId, RECOMPRESSION_BATCH_SIZE);
+        LOGGER.info("Rewrote {} of {} contents with IDs above {}", batch::updated, batch::read, () -> afterId);
+        return batch.lastId() == null ? List.of() : List.of("cms recompress contents after id " + batch.lastId());
+    }
+
+    @MCRCommand(syntax = "cms compact versions",
+        help = "Delete draft versions according to MCR.CMS.Retention.*, in chunks with one transaction each")
+    public static List<String> compactVersions() {
+        List<Long> pageIds = new CMSVersionRetention().findPagesToCompact();
+        LOGGER.info("Found {} pages with more drafts than retained", pageIds::size);
+        List<String> commands = new ArrayList<>(pageIds.size());
+        for (int i = 0; i < pageIds.size(); i++) {
+            commands.add("cms compact versions of page " + pageIds.get(i) + " (" + (i + 1) + " of " + pageIds.size()
+                + ")");
+        }
+        return commands;
+    }
+
+    @MCRCommand(syntax = "cms compact versions of page {0} ({1} of {2})",
+        help = "Delete one chunk of draft versions of page {0} according to MCR.CMS.Retention.*,"
+            + " used by cms compact versions")
+    public static List<String> compactVersionsOfPage(long pageId, int index, int count) {
+        CMSVersionRetention retention = new CMSVersionRetention();
+        long start = System.nanoTime();
+        int deleted = retention.compactPage(pageId);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOGGER.info("Page {} ({} of {}): deleted {} drafts in {} s ({} versions/s)", () -> pageId, () -> index,
+            () -> count, () -> deleted, () -> String.format(Locale.ROOT, "%.2f", seconds),
+            () -> String.format(Locale.ROOT, "%.0f", seconds > 0 ? deleted / seconds : deleted));
+        return deleted == retention.getChunkSize()
+            ? List.of("cms compact versions of page " + pageId + " (" + index + " of " + count + ")")
+            : List.of();
+    }
+
+    @MCRCommand(syntax = "cms rebuild search index",
+        help = "Rebuild the full-text search index of published CMS pages in this process, e.g. in the WebCLI after"
+            + " changes made by other processes")
+    public static void rebuildSearchIndex() {
+        int count = new CMSPageService().rebuildSearchIndex();
+        LOGGER.info("Indexed {} published translations", () -> count);
+    }
+
+    @MCRCommand(syntax = "cms show cache statistics",
+        help = "Show size and hit/miss statistics of the CMS caches and permission checks in this process")
+    public static void showCacheStatistics() {
+        CMSPublishedContentCache publishedContentCache = CMSPublishedContentCache.getInstance();
+        logCacheStatistics("published content", publishedContentCache.size(), publishedContentCache.getStats());
+        CMSVersionCache versionCache = CMSVersionCache.getInstance();
+        logCacheStatistics("versions", versionCache.size(), versionCache.getStats());
+        logCacheStatistics("page visibility", versionCache.pageCount(), versionCache.getPageStats());
+        CMSVersionDiffCache versionDiffCache = CMSVersionDiffCache.getInstance();
+        logCacheStatistics("version diffs", versionDiffCache.size(), versionDiffCache.getStats());
+        CMSContentStore contentStore = CMSContentStore.getInstance();
+        logCacheStatistics("contents rebuilt from deltas", contentStore.size(), contentStore.getStats());
+        CMSPermissionCache permissionCache = CMSPermissionCache.getInstance();
+        logCacheStatistics("permissions", permissionCache.size(), permissionCache.getStats());
+        LOGGER.info("Permission checks: {} evaluated, {} answered from the per-request memo",
+            CMSPermissionService::getEvaluationCount, CMSPermissionService::getSavedEvaluationCount);
+        LOGGER.info("Language registry: {} languages", () -> CMSLanguageRegistry.getInstance().size());
+        LOGGER.info("Search index: {} translations", () -> CMSSearchIndex.getInstance().size());
+        LOGGER.info("Slug tree: {} pages", () -> CMSSlugTree.getInstance().size());
+    }
+
+    @MCRCommand(syntax = "cms clear caches",
+        help = "Remove all entries from the CMS caches in this process, e.g. after changing ACL rules")
+    public static void clearCaches() {
+        CMSPublishedContentCache.getInstance().invalidateAll();
+        CMSVersionCache.getInstance().invalidateAll();
+        CMSVersionDiffCache.getInstance().invalidateAll();
+        CMSContentStore.getInstance().invalidateAll();
+        CMSPermissionCache.getInstance().onAccessRulesChanged();
+        CMSLanguageRegistry.getInstance().invalidateAll();
+        CMSSearchIndex.getInstance().invalidateAll();
+        CMSSlugTree.getInstance().invalidateAll();
+        LOGGER.info("Cleared CMS caches");
+    }
+
+    private static void logCacheStatistics(String name, long size, CacheStats stats) {
+        LOGGER.info("Cache '{}': {} entries, {} hits, {} misses, hit rate {}, {} evictions", () -> name,
+            () -> size, stats::hitCount, stats::missCount,
+            () -> String.format(Locale.ROOT, "%.2f", stats.hitRate()), stats::evictionCount);
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gbv.reposis.cms.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for a node of the page tree formed by the segments of the slugs.
+ */
+public class CMSPageTreeNodeDTO {
+    private String slug;
+    @JsonProperty("page_id")
+    private Long pageId;
+    private String title;
+    private List<CMSPageTreeNodeDTO> children;
+
+    public CMSPageTreeNodeDTO() {
+    }
+
+    public CMSPageTreeNodeDTO(String slug, Long pageId, String title, List<CMSPageTreeNodeDTO> children) {
+        this.slug = slug;
+        this.pageId = pageId;
+        this.title = title;
+        this.children = children;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public void setSlug(String slug) {
+        this.slug = slug;
+    }
+
+    public Long getPageId() {
+        return pageId;
+    }
+
+    public void setPageId(Long pageId) {
+        this.pageId = pageId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public List<CMSPageTreeNodeDTO> getChildren() {
+        return children;
+    }
+
+    public void setChildren(List<CMSPageTreeNodeDTO> children) {
+        this.children = children;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gbv.reposis.cms.dto;
+
+import java.util.List;
+
+/**
+ * DTO for one page of full-text search results.
+ */
+public class CMSSearchResultDTO {
+    private Integer total;
+    private Integer offset;
+    private Integer limit;
+    private List<CMSSearchHitDTO> hits;
+
+    public CMSSearchResultDTO() {
+    }
+
+    public CMSSearchResultDTO(Integer total, Integer offset, Integer limit, List<CMSSearchHitDTO> hits) {
+        this.total = total;
+        this.offset = offset;
+        this.limit = limit;
+        this.hits = hits;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+
+    public Integer getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Integer offset) {
+        this.offset = offset;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public List<CMSSearchHitDTO> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<CMSSearchHitDTO> hits) {
+        this.hits = hits;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gbv.reposis.cms.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for the permissions of the current user for a slug.
+ */
+public class CMSSlugPermissionsDTO {
+    @JsonProperty("slug_exists")
+    private boolean slugExists;
+    private boolean write;
+    @JsonProperty("read_draft")
+    private boolean readDraft;
+    @JsonProperty("read_archived")
+    private boolean readArchived;
+    private boolean delete;
+
+    public CMSSlugPermissionsDTO() {
+    }
+
+    public CMSSlugPermissionsDTO(boolean slugExists, boolean write, boolean readDraft, boolean readArchived,
+        boolean delete) {
+        this.slugExists = slugExists;
+        this.write = write;
+        this.readDraft = readDraft;
+        this.readArchived = readArchived;
+        this.delete = delete;
+    }
+
+    public boolean isSlugExists() {
+        return slugExists;
+    }
+
+    public void setSlugExists(boolean slugExists) {
+        this.slugExists = slugExists;
+    }
+
+    public boolean isWrite() {
+        return write;
+    }
+
+    public void setWrite(boolean write) {
+        this.write = write;
+    }
+
+    public boolean isReadDraft() {
+        return readDraft;
+    }
+
+    public void setReadDraft(boolean readDraft) {
+        this.readDraft = readDraft;
+    }
+
+    public boolean isReadArchived() {
+        return readArchived;
+    }
+
+    public void setReadArchived(boolean readArchived) {
+        this.readArchived = readArchived;
+    }
+
+    public boolean isDelete() {
+        return delete;
+    }
+
+    public void setDelete(boolean delete) {
+        this.delete = delete;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gbv.reposis.cms.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for the differences between the translations of two versions in one language.
+ * The content differences are a list of operations, each a pair of an operation symbol and a text: <code>=</code>
+ * for unchanged, <code>-</code> for removed and <code>+</code> for added text. Concatenating the texts of all
+ * operations except <code>+</code> yields the old content, all except <code>-</code> the new content.
+ */
+public class CMSTranslationDiffDTO {
+    /**
+     * Operation symbol for unchanged text.
+     */
+    public static final String OPERATION_EQUAL = "=";
+
+    /**
+     * Operation symbol for removed text.
+     */
+    public static final String OPERATION_DELETE = "-";
+
+    /**
+     * Operation symbol for added text.
+     */
+    public static final String OPERATION_INSERT = "+";
+
+    private String language;
+    @JsonProperty("from_title")
+    private String fromTitle;
+    @JsonProperty("to_title")
+    private String toTitle;
+    private List<List<String>> operations;
+
+    public CMSTranslationDiffDTO() {
+    }
+
+    public CMSTranslationDiffDTO(String language, String fromTitle, String toTitle, List<List<String>> operations) {
+        this.language = language;
+        this.fromTitle = fromTitle;
+        this.toTitle = toTitle;
+        this.operations = operations;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getFromTitle() {
+        return fromTitle;
+    }
+
+    public void setFromTitle(String fromTitle) {
+        this.fromTitle = fromTitle;
+    }
+
+    public String getToTitle() {
+        return toTitle;
+    }
+
+    public void setToTitle(String toTitle) {
+        this.toTitle = toTitle;
+    }
+
+    public List<List<String>> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<List<String>> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.gbv.reposis.cms.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for the differences between two versions of a page.
+ */
+public class CMSVersionDiffDTO {
+    @JsonProperty("from_version")
+    private Integer fromVersion;
+    @JsonProperty("to_version")
+    private Integer toVersion;
+    private List<CMSTranslationDiffDTO> translations;
+
+    public CMSVersionDiffDTO() {
+    }
+
+    public CMSVersionDiffDTO(Integer fromVersion, Integer toVersion, List<CMSTranslationDiffDTO> translations) {
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.translations = translations;
+    }
+
+    public Integer getFromVersion() {
+        return fromVersion;
+    }
+
+    public void setFromVersion(Integer fromVersion) {
+        this.fromVersion = fromVersion;
+    }
+
+    public Integer getToVersion() {
+        return toVersion;
+    }
+
+    public void setToVersion(Integer toVersion) {
+        this.toVersion = toVersion;
+    }
+
+    public List<CMSTranslationDiffDTO> getTranslations() {
+        return translations;
+    }
+
+    public void setTranslations(List<CMSTranslationDiffDTO> translations) {
+        this.translations = translations;
+    }
+}
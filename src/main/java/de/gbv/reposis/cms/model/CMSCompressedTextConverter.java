@@ -0,0 +1,171 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.mycore.common.config.MCRConfiguration2;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Compresses texts stored in a text column.
+ * If enabled with <code>MCR.CMS.Content.Compression.Enabled</code>, texts of at least
+ * <code>MCR.CMS.Content.Compression.MinSize</code> characters are stored Deflate compressed and Base64 encoded,
+ * if that makes them shorter.
+ * <p>
+ * Compressed values start with the marker <code>\u0001deflate:</code>. Values without marker are plain text, so rows
+ * written before compression was enabled stay readable. Plain texts that start with the marker character themselves
+ * are stored with the prefix <code>\u0001plain:</code>.
+ */
+@Converter
+public class CMSCompressedTextConverter implements AttributeConverter<String, String> {
+
+    /**
+     * Property key to enable compression of new values.
+     */
+    public static final String PROPERTY_ENABLED = "MCR.CMS.Content.Compression.Enabled";
+
+    /**
+     * Property key for the minimum length of texts to be compressed.
+     */
+    public static final String PROPERTY_MIN_SIZE = "MCR.CMS.Content.Compression.MinSize";
+
+    /**
+     * Default minimum length: 1024 characters.
+     */
+    public static final int DEFAULT_MIN_SIZE = 1024;
+
+    private static final char MARKER = '\u0001';
+
+    private static final String DEFLATE_PREFIX = MARKER + "deflate:";
+
+    private static final String PLAIN_PREFIX = MARKER + "plain:";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final boolean enabled;
+
+    private final int minSize;
+
+    /**
+     * Creates a converter with the current configuration.
+     */
+    public CMSCompressedTextConverter() {
+        this(MCRConfiguration2.getBoolean(PROPERTY_ENABLED).orElse(false),
+            MCRConfiguration2.getInt(PROPERTY_MIN_SIZE).orElse(DEFAULT_MIN_SIZE));
+    }
+
+    /**
+     * Creates a converter independent of the configuration, for tests.
+     */
+    CMSCompressedTextConverter(boolean enabled, int minSize) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String text) {
+        return compress(text);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String value) {
+        return decompress(value);
+    }
+
+    /**
+     * Returns the stored form of a text according to the configuration of this converter.
+     */
+    public String compress(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (enabled && text.length() >= minSize) {
+            String compressed = DEFLATE_PREFIX + deflate(text);
+            if (compressed.length() < text.length()) {
+                return compressed;
+            }
+        }
+        return text.isEmpty() || text.charAt(0) != MARKER ? text : PLAIN_PREFIX + text;
+    }
+
+    /**
+     * Returns the text of a stored value, compressed or not.
+     *
+     * @throws IllegalStateException if a compressed value is corrupt
+     */
+    public static String decompress(String value) {
+        if (value == null || value.isEmpty() || value.charAt(0) != MARKER) {
+            return value;
+        }
+        if (value.startsWith(DEFLATE_PREFIX)) {
+            return inflate(value.substring(DEFLATE_PREFIX.length()));
+        }
+        if (value.startsWith(PLAIN_PREFIX)) {
+            return value.substring(PLAIN_PREFIX.length());
+        }
+        return value;
+    }
+
+    private static String deflate(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4 + 64);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return Base64.getEncoder().encodeToString(output.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(String encoded) {
+        Inflater inflater = new Inflater();
+        try {
+            byte[] input = Base64.getDecoder().decode(encoded);
+            inflater.setInput(input);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Compressed content is truncated");
+                }
+                output.write(buffer, 0, length);
+            }
+            return output.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IllegalStateException("Compressed content is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
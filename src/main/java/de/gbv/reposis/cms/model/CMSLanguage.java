@@ -22,6 +22,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 /**
@@ -31,7 +32,8 @@ import jakarta.persistence.Table;
 @Table(name = "cms_language")
 public class CMSLanguage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cms_language_seq")
+    @SequenceGenerator(name = "cms_language_seq", sequenceName = "cms_language_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String name;
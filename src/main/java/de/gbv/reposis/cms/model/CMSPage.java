@@ -27,22 +27,32 @@ import java.util.List;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 /**
  * Entity representing a CMS page.
  */
 @Entity
-@Table(name = "cms_page")
+@Table(name = "cms_page", indexes = @Index(name = CMSPage.INDEX_UPDATED, columnList = "updated_at, id"))
 public class CMSPage {
 
+    /**
+     * Name of the index for the keyset pagination by modification time.
+     */
+    public static final String INDEX_UPDATED = "cms_page_updated_idx";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cms_page_seq")
+    @SequenceGenerator(name = "cms_page_seq", sequenceName = "cms_page_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -54,6 +64,27 @@ public class CMSPage {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    /**
+     * Number of the highest version, 0 if the page has no versions.
+     * Also serves as the version counter of the page, new numbers are allocated by advancing it with a conditional
+     * update. <code>null</code> for pages created before the head columns were introduced.
+     */
+    @Column(name = "latest_version_number")
+    private Integer latestVersionNumber;
+
+    /**
+     * Status of the highest non-draft version, <code>null</code> if the page only has drafts.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "latest_non_draft_status")
+    private CMSPageStatus latestNonDraftStatus;
+
+    /**
+     * ID of the highest published version, <code>null</code> if no version was ever published.
+     */
+    @Column(name = "latest_published_version_id")
+    private Long latestPublishedVersionId;
+
     @OneToMany(mappedBy = "page", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("versionNumber DESC")
     private List<CMSPageVersion> versions = new ArrayList<>();
@@ -65,6 +96,7 @@ public class CMSPage {
         this.slug = slug;
         this.createdAt = Instant.now();
         this.updatedAt = Instant.now();
+        this.latestVersionNumber = 0;
     }
 
     public Long getId() {
@@ -99,6 +131,30 @@ public class CMSPage {
         this.updatedAt = updatedAt;
     }
 
+    public Integer getLatestVersionNumber() {
+        return latestVersionNumber;
+    }
+
+    public void setLatestVersionNumber(Integer latestVersionNumber) {
+        this.latestVersionNumber = latestVersionNumber;
+    }
+
+    public CMSPageStatus getLatestNonDraftStatus() {
+        return latestNonDraftStatus;
+    }
+
+    public void setLatestNonDraftStatus(CMSPageStatus latestNonDraftStatus) {
+        this.latestNonDraftStatus = latestNonDraftStatus;
+    }
+
+    public Long getLatestPublishedVersionId() {
+        return latestPublishedVersionId;
+    }
+
+    public void setLatestPublishedVersionId(Long latestPublishedVersionId) {
+        this.latestPublishedVersionId = latestPublishedVersionId;
+    }
+
     public List<CMSPageVersion> getVersions() {
         return versions;
     }
@@ -107,10 +163,20 @@ public class CMSPage {
         this.versions = versions;
     }
 
+    /**
+     * Adds a version and advances the head columns if it is the highest version.
+     * The published version ID is only known after the version is persisted and has to be set by the caller.
+     */
     public void addVersion(CMSPageVersion version) {
         versions.add(version);
         version.setPage(this);
         this.updatedAt = Instant.now();
+        if (latestVersionNumber == null || version.getVersionNumber() > latestVersionNumber) {
+            latestVersionNumber = version.getVersionNumber();
+            if (version.getStatus() != CMSPageStatus.DRAFT) {
+                latestNonDraftStatus = version.getStatus();
+            }
+        }
     }
 
     /**
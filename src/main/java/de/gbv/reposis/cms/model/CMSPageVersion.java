@@ -31,21 +31,53 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * Entity representing a version of a CMS page.
  * Versions are immutable after creation.
  */
 @Entity
-@Table(name = "cms_page_version")
+@Table(name = "cms_page_version",
+    uniqueConstraints = @UniqueConstraint(name = CMSPageVersion.UNIQUE_VERSION_NUMBER,
+        columnNames = { "page_id", "version_number" }),
+    indexes = @Index(name = CMSPageVersion.INDEX_STATUS, columnList = "page_id, status, version_number"))
+@NamedEntityGraph(name = CMSPageVersion.GRAPH_TRANSLATIONS,
+    attributeNodes = @NamedAttributeNode(value = "translations", subgraph = "translation"),
+    subgraphs = @NamedSubgraph(name = "translation", attributeNodes = {
+        @NamedAttributeNode("language"),
+        @NamedAttributeNode("content")
+    }))
 public class CMSPageVersion {
 
+    /**
+     * Entity graph loading a version with its translations, their languages and contents in a single statement.
+     * Used by the version detail and export use cases.
+     */
+    public static final String GRAPH_TRANSLATIONS = "CMSPageVersion.translations";
+
+    /**
+     * Name of the unique constraint on page and version number.
+     */
+    public static final String UNIQUE_VERSION_NUMBER = "cms_page_version_number_uk";
+
+    /**
+     * Name of the index for the newest version of a page with a given status.
+     */
+    public static final String INDEX_STATUS = "cms_page_version_status_idx";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cms_page_version_seq")
+    @SequenceGenerator(name = "cms_page_version_seq", sequenceName = "cms_page_version_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -24,20 +24,33 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 /**
  * Entity representing a translation of a page version.
+ * The content is stored in a separate {@link CMSTranslationContent} entity and only loaded on access, its text is
+ * resolved by the service layer.
+ * Contents are shared between translations with the same text, so they are neither persisted nor removed together
+ * with a translation.
  */
 @Entity
-@Table(name = "cms_page_version_translation")
+@Table(name = "cms_page_version_translation",
+    indexes = @Index(name = CMSPageVersionTranslation.INDEX_LANGUAGE, columnList = "page_version_id, language_id"))
 public class CMSPageVersionTranslation {
 
+    /**
+     * Name of the index for the lookup of the translation of a version in a language.
+     */
+    public static final String INDEX_LANGUAGE = "cms_translation_language_idx";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cms_page_version_translation_seq")
+    @SequenceGenerator(name = "cms_page_version_translation_seq", sequenceName = "cms_page_version_translation_seq",
+        allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -51,9 +64,9 @@ public class CMSPageVersionTranslation {
     @Column(nullable = false)
     private String title;
 
-    @Lob
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String content;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "content_id")
+    private CMSTranslationContent content;
 
     public CMSPageVersionTranslation() {
     }
@@ -62,7 +75,7 @@ public class CMSPageVersionTranslation {
         this.pageVersion = pageVersion;
         this.language = language;
         this.title = title;
-        this.content = content;
+        this.content = new CMSTranslationContent(content);
     }
 
     public Long getId() {
@@ -97,11 +110,18 @@ public class CMSPageVersionTranslation {
         this.title = title;
     }
 
-    public String getContent() {
+    /**
+     * Sets the content. Content entities are never modified in place, a new one is created.
+     */
+    public void setContent(String content) {
+        this.content = new CMSTranslationContent(content);
+    }
+
+    public CMSTranslationContent getContentEntity() {
         return content;
     }
 
-    public void setContent(String content) {
+    public void setContentEntity(CMSTranslationContent content) {
         this.content = content;
     }
 }
@@ -0,0 +1,179 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * Entity holding the content of a translation.
+ * Kept in its own table, so translations can be loaded without their content. Contents are addressed by the
+ * SHA-256 hash of their text, translations with the same text share one content.
+ * <p>
+ * A content is either stored in full or as a delta against a base content. {@link #getStoredContent()} returns the
+ * stored form, the full text of a delta is rebuilt by {@link de.gbv.reposis.cms.service.CMSContentStore}. Either
+ * form may be compressed in the database by the {@link CMSCompressedTextConverter}.
+ */
+@Entity
+@Table(name = "cms_translation_content",
+    indexes = {
+        @Index(name = CMSTranslationContent.INDEX_HASH, columnList = "content_hash"),
+        @Index(name = CMSTranslationContent.INDEX_BASE, columnList = "base_id")
+    })
+public class CMSTranslationContent {
+
+    /**
+     * Name of the index for the lookup of contents by hash.
+     */
+    public static final String INDEX_HASH = "cms_translation_content_hash_idx";
+
+    /**
+     * Name of the index for the lookup of the deltas based on a content.
+     */
+    public static final String INDEX_BASE = "cms_translation_content_base_idx";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cms_translation_content_seq")
+    @SequenceGenerator(name = "cms_translation_content_seq", sequenceName = "cms_translation_content_seq",
+        allocationSize = 50)
+    private Long id;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    @Convert(converter = CMSCompressedTextConverter.class)
+    private String content;
+
+    /**
+     * Hex encoded SHA-256 hash of the content, <code>null</code> for contents stored before hashes were introduced.
+     */
+    @Column(name = "content_hash", length = 64)
+    private String hash;
+
+    /**
+     * The content the stored delta applies to, <code>null</code> if the content is stored in full.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "base_id")
+    private CMSTranslationContent base;
+
+    /**
+     * Number of deltas between this content and the nearest full content, <code>null</code> for full contents.
+     */
+    @Column(name = "delta_depth")
+    private Integer deltaDepth;
+
+    public CMSTranslationContent() {
+    }
+
+    public CMSTranslationContent(String content) {
+        this.content = content;
+        this.hash = hash(content);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Sets the full text, the content is then stored in full.
+     */
+    public void setContent(String content) {
+        this.content = content;
+        this.hash = hash(content);
+        this.base = null;
+        this.deltaDepth = null;
+    }
+
+    /**
+     * Returns the stored form of the content, the full text or a delta against the base.
+     */
+    public String getStoredContent() {
+        return content;
+    }
+
+    /**
+     * Replaces the stored full text by a delta. The hash stays the hash of the full text.
+     *
+     * @param base  the content the delta applies to
+     * @param depth the number of deltas between this content and the nearest full content
+     * @param delta the delta against the full text of the base
+     */
+    public void setDelta(CMSTranslationContent base, int depth, String delta) {
+        this.base = base;
+        this.deltaDepth = depth;
+        this.content = delta;
+    }
+
+    public CMSTranslationContent getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the number of deltas between this content and the nearest full content, 0 for full contents.
+     */
+    public int getDeltaDepth() {
+        return base == null || deltaDepth == null ? 0 : deltaDepth;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 hash of a content.
+     *
+     * @param content the content, may be <code>null</code>
+     * @return the hash or <code>null</code> if the content is <code>null</code>
+     */
+    public static String hash(String content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -18,22 +18,59 @@
 
 package de.gbv.reposis.cms.resource;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.mycore.common.MCRSession;
 import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.MCRUserInformation;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.frontend.MCRFrontendUtil;
 import org.mycore.restapi.annotations.MCRRequireTransaction;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
 import de.gbv.reposis.cms.dto.CMSCreatePageDTO;
 import de.gbv.reposis.cms.dto.CMSCreateVersionDTO;
 import de.gbv.reposis.cms.dto.CMSPageDetailDTO;
 import de.gbv.reposis.cms.dto.CMSPageListDTO;
+import de.gbv.reposis.cms.dto.CMSSearchResultDTO;
+import de.gbv.reposis.cms.dto.CMSSlugPermissionsDTO;
 import de.gbv.reposis.cms.dto.CMSTranslationDetailDTO;
+import de.gbv.reposis.cms.dto.CMSTranslationDiffDTO;
 import de.gbv.reposis.cms.dto.CMSVersionDetailDTO;
+import de.gbv.reposis.cms.dto.CMSVersionDiffDTO;
 import de.gbv.reposis.cms.dto.CMSVersionInfoDTO;
 import de.gbv.reposis.cms.model.CMSPage;
+import de.gbv.reposis.cms.model.CMSPageStatus;
+import de.gbv.reposis.cms.service.CMSCacheValidator;
+import de.gbv.reposis.cms.service.CMSPageListResult;
+import de.gbv.reposis.cms.service.CMSPageQuery;
 import de.gbv.reposis.cms.service.CMSPageService;
+import de.gbv.reposis.cms.service.CMSPermissionCache;
 import de.gbv.reposis.cms.service.CMSPermissionService;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
@@ -43,11 +80,23 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
 
 /**
  * REST resource for CMS pages.
+ * <p>
+ * All GET endpoints for pages and versions send an ETag and a Last-Modified header. Conditional requests are
+ * evaluated against a validator that is resolved before any version or translation is loaded. All responses are sent
+ * with <code>Cache-Control: private, no-cache</code>, even numbered versions, which may be deleted by the retention
+ * policy.
  */
 @Path("pages")
 @Produces(MediaType.APPLICATION_JSON)
@@ -56,23 +105,94 @@ public class CMSPageResource {
 
     private static final String PATH_PARAM_PAGE_ID = "pageId";
 
-    private final CMSPageService pageService = new CMSPageService();
+    private static final int MAX_PERMISSION_SLUGS = 1000;
+
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    private static final int SITEMAP_MAX_URLS = 50_000;
+
+    private static final String SITEMAP_NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+
+    private static final String SITEMAP_URL_PATTERN = MCRConfiguration2.getString("MCR.CMS.Sitemap.URLPattern")
+        .orElse("{baseURL}{lang}{slug}");
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private static final int DEFAULT_TREE_DEPTH = 1;
+
+    private static final int MAX_TREE_DEPTH = 10;
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+
     private final CMSPermissionService permissionService = new CMSPermissionService();
+    private final CMSPageService pageService = new CMSPageService(permissionService);
 
     /**
      * GET /pages - List all pages
      * GET /pages?slug={slug} - Find page by slug
+     * GET /pages?limit={n}&amp;cursor={cursor}&amp;sort={updated|slug}&amp;prefix={prefix}&amp;status={status}&amp;since={instant}
+     * - List pages with keyset pagination, the next cursor is returned in a Link header (rel="next")
      */
     @GET
     @MCRRequireTransaction
-    public Response getPages(@QueryParam("slug") String slug) {
+    public Response getPages(@QueryParam("slug") String slug,
+        @QueryParam("prefix") String prefix,
+        @QueryParam("status") String status,
+        @QueryParam("since") String since,
+        @QueryParam("sort") String sort,
+        @QueryParam("limit") Integer limit,
+        @QueryParam("cursor") String cursor,
+        @Context UriInfo uriInfo,
+        @Context Request request) {
+        return evaluatePreconditions(request, Optional.of(pageService.getPagesValidator()), revalidateCacheControl(),
+            () -> listPages(slug, prefix, status, since, sort, limit, cursor, uriInfo));
+    }
+
+    private Response listPages(String slug, String prefix, String status, String since, String sort, Integer limit,
+        String cursor, UriInfo uriInfo) {
         if (slug != null && !slug.isEmpty()) {
             Optional<CMSPageListDTO> page = pageService.getPageBySlug(slug);
             return page.map(p -> Response.ok(List.of(p)).build())
                 .orElse(Response.ok(List.of()).build());
         }
-        List<CMSPageListDTO> pages = pageService.getAllPages();
-        return Response.ok(pages).build();
+        if (prefix == null && status == null && since == null && sort == null && limit == null && cursor == null) {
+            List<CMSPageListDTO> pages = pageService.getAllPages();
+            return Response.ok(pages).build();
+        }
+
+        CMSPageListResult result;
+        try {
+            CMSPageQuery pageQuery = new CMSPageQuery();
+            pageQuery.setSlugPrefix(prefix);
+            pageQuery.setCursor(cursor);
+            if (status != null) {
+                pageQuery.setStatus(CMSPageStatus.fromValue(status));
+            }
+            if (since != null) {
+                pageQuery.setUpdatedSince(Instant.parse(since));
+            }
+            if (sort != null) {
+                pageQuery.setSort(CMSPageQuery.Sort.fromValue(sort));
+            }
+            if (limit != null) {
+                pageQuery.setLimit(limit);
+            }
+            result = pageService.listPages(pageQuery);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"" + escapeJson(e.getMessage()) + "\"}")
+                .build();
+        }
+
+        Response.ResponseBuilder response = Response.ok(result.getPages());
+        result.getNextCursor()
+            .map(nextCursor -> uriInfo.getRequestUriBuilder().replaceQueryParam("cursor", nextCursor).build())
+            .ifPresent(next -> response.link(next, "next"));
+        return response.build();
     }
 
     /**
@@ -88,17 +208,268 @@ public class CMSPageResource {
                 .build();
         }
 
-        boolean slugExists = pageService.slugExists(slug);
-        boolean canWrite = permissionService.canWriteSlug(slug);
-        boolean canReadDraft = permissionService.canReadDraftSlug(slug);
-        boolean canReadArchived = permissionService.canReadArchivedSlug(slug);
-        boolean canDelete = permissionService.canDeleteSlug(slug);
+        return Response.ok(getPermissions(slug, pageService.slugExists(slug))).build();
+    }
+
+    /**
+     * POST /pages/_permissions - Get permissions for a list of slugs, returned as an object keyed by slug
+     */
+    @POST
+    @Path("_permissions")
+    @MCRRequireTransaction
+    public Response getPermissions(List<String> slugs) {
+        if (slugs == null || slugs.stream().anyMatch(slug -> slug == null || slug.isEmpty())) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"a list of non-empty slugs is required\"}")
+                .build();
+        }
+        if (slugs.size() > MAX_PERMISSION_SLUGS) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"at most " + MAX_PERMISSION_SLUGS + " slugs are allowed\"}")
+                .build();
+        }
+
+        Set<String> uniqueSlugs = new LinkedHashSet<>(slugs);
+        Set<String> existingSlugs = pageService.getExistingSlugs(uniqueSlugs);
+        Map<String, CMSSlugPermissionsDTO> permissions = new LinkedHashMap<>();
+        for (String slug : uniqueSlugs) {
+            permissions.put(slug, getPermissions(slug, existingSlugs.contains(slug)));
+        }
+        return Response.ok(permissions).build();
+    }
+
+    /**
+     * GET /pages/_search?q={query}&amp;lang={lang}&amp;limit={n}&amp;offset={n} - Search the published translations of
+     * a language, ranked by relevance. All terms must match. The next page is returned in a Link header
+     * (rel="next").
+     */
+    @GET
+    @Path("_search")
+    @MCRRequireTransaction
+    public Response search(@QueryParam("q") String query,
+        @QueryParam("lang") String lang,
+        @QueryParam("limit") Integer limit,
+        @QueryParam("offset") Integer offset,
+        @Context UriInfo uriInfo) {
+        if (query == null || query.isBlank() || lang == null || lang.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"q and lang are required\"}")
+                .build();
+        }
+        int searchLimit = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        int searchOffset = offset == null ? 0 : offset;
+        if (searchLimit < 1 || searchLimit > MAX_SEARCH_LIMIT || searchOffset < 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"limit must be between 1 and " + MAX_SEARCH_LIMIT
+                    + ", offset must not be negative\"}")
+                .build();
+        }
 
-        String json = String.format(Locale.ROOT,
-            "{\"slug_exists\": %b, \"write\": %b, \"read_draft\": %b, \"read_archived\": %b, \"delete\": %b}",
-            slugExists, canWrite, canReadDraft, canReadArchived, canDelete);
+        CMSSearchResultDTO result = pageService.search(query, lang, searchOffset, searchLimit);
+        Response.ResponseBuilder response = Response.ok(result).cacheControl(revalidateCacheControl());
+        if (searchOffset + searchLimit < result.getTotal()) {
+            response.link(uriInfo.getRequestUriBuilder().replaceQueryParam("offset", searchOffset + searchLimit)
+                .build(), "next");
+        }
+        return response.build();
+    }
 
-        return Response.ok(json).build();
+    /**
+     * GET /pages/_tree?root={slug}&amp;depth={n}&amp;lang={lang} - Get the visible pages below a slug as a tree of
+     * slug segments, with the titles of their highest published versions in the given language
+     */
+    @GET
+    @Path("_tree")
+    @MCRRequireTransaction
+    public Response getPageTree(@QueryParam("root") String root,
+        @QueryParam("depth") Integer depth,
+        @QueryParam("lang") String lang,
+        @Context Request request) {
+        int treeDepth = depth == null ? DEFAULT_TREE_DEPTH : depth;
+        if (treeDepth < 0 || treeDepth > MAX_TREE_DEPTH) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"depth must be between 0 and " + MAX_TREE_DEPTH + "\"}")
+                .build();
+        }
+        String rootSlug = root == null || root.isEmpty() ? "/" : root.startsWith("/") ? root : "/" + root;
+        return evaluatePreconditions(request, Optional.of(pageService.getPagesValidator()), revalidateCacheControl(),
+            () -> pageService.getPageTree(rootSlug, treeDepth, lang)
+                .map(tree -> Response.ok(tree).build())
+                .orElse(Response.status(Response.Status.NOT_FOUND).build()));
+    }
+
+    /**
+     * GET /pages/_sitemap.xml - Get a sitemap of the published translations of all pages. With more than
+     * {@value #SITEMAP_MAX_URLS} translations a sitemap index is returned, its parts are fetched with
+     * GET /pages/_sitemap.xml?after={pageId}&amp;until={pageId}
+     */
+    @GET
+    @Path("_sitemap.xml")
+    @Produces(MediaType.APPLICATION_XML)
+    @MCRRequireTransaction
+    public Response getSitemap(@QueryParam("after") Long afterPageId,
+        @QueryParam("until") Long untilPageId,
+        @Context UriInfo uriInfo,
+        @Context Request request) {
+        CMSCacheValidator pagesValidator = pageService.getPagesValidator();
+        return evaluatePreconditions(request, Optional.of(pagesValidator), revalidateCacheControl(), () -> {
+            if (afterPageId == null && untilPageId == null) {
+                List<CMSPageService.SitemapPart> parts = pageService.getSitemapParts(pagesValidator,
+                    SITEMAP_MAX_URLS);
+                if (parts.size() > 1) {
+                    return Response.ok(streamSitemapIndex(uriInfo, parts)).build();
+                }
+            }
+            MCRSession session = MCRSessionMgr.getCurrentSession();
+            return Response.ok(streamSitemap(MCRFrontendUtil.getBaseURL(),
+                new CMSPageService.SitemapPart(afterPageId == null ? 0 : afterPageId,
+                    untilPageId == null ? Long.MAX_VALUE : untilPageId),
+                session.getUserInformation(), session.getCurrentIP()))
+                .build();
+        });
+    }
+
+    private static StreamingOutput streamSitemapIndex(UriInfo uriInfo, List<CMSPageService.SitemapPart> parts) {
+        return output -> {
+            try {
+                XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(output, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeStartElement("sitemapindex");
+                writer.writeDefaultNamespace(SITEMAP_NAMESPACE);
+                for (CMSPageService.SitemapPart part : parts) {
+                    UriBuilder partUri = uriInfo.getRequestUriBuilder().replaceQueryParam("after", part.afterPageId());
+                    if (part.untilPageId() != Long.MAX_VALUE) {
+                        partUri.replaceQueryParam("until", part.untilPageId());
+                    }
+                    writer.writeStartElement("sitemap");
+                    writeElement(writer, "loc", partUri.build().toString());
+                    writer.writeEndElement();
+                }
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        };
+    }
+
+    /**
+     * Writes the entries of one sitemap part while they are read from the database. The session of the request may
+     * already be released when the response is written, so the entries are read in a session of the requesting user
+     * and in a transaction of their own, and permissions are checked for that user and IP.
+     */
+    private StreamingOutput streamSitemap(String baseURL, CMSPageService.SitemapPart part,
+        MCRUserInformation userInformation, String ip) {
+        return output -> {
+            MCRSession requestSession = MCRSessionMgr.hasCurrentSession() ? MCRSessionMgr.getCurrentSession() : null;
+            boolean ownSession = requestSession == null
+                || !requestSession.getUserInformation().getUserID().equals(userInformation.getUserID());
+            if (ownSession) {
+                if (requestSession != null) {
+                    MCRSessionMgr.releaseCurrentSession();
+                }
+                MCRSession session = MCRSessionMgr.getCurrentSession();
+                session.setUserInformation(userInformation);
+                if (ip != null && !ip.isEmpty()) {
+                    session.setCurrentIP(ip);
+                }
+            }
+            try {
+                writeSitemapInTransaction(output, baseURL, part);
+            } finally {
+                if (ownSession) {
+                    MCRSession session = MCRSessionMgr.getCurrentSession();
+                    MCRSessionMgr.releaseCurrentSession();
+                    session.close();
+                    if (requestSession != null) {
+                        MCRSessionMgr.setCurrentSession(requestSession);
+                    }
+                }
+            }
+        };
+    }
+
+    private void writeSitemapInTransaction(OutputStream output, String baseURL, CMSPageService.SitemapPart part)
+        throws IOException {
+        boolean ownTransaction = !MCRTransactionHelper.isTransactionActive();
+        if (ownTransaction) {
+            MCRTransactionHelper.beginTransaction();
+        }
+        try {
+            writeSitemap(output, baseURL, part);
+            if (ownTransaction) {
+                MCRTransactionHelper.commitTransaction();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (ownTransaction) {
+                MCRTransactionHelper.rollbackTransaction();
+            }
+            throw e;
+        }
+    }
+
+    private void writeSitemap(OutputStream output, String baseURL, CMSPageService.SitemapPart part)
+        throws IOException {
+        try {
+            XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(output, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("urlset");
+            writer.writeDefaultNamespace(SITEMAP_NAMESPACE);
+            pageService.forEachSitemapEntry(part.afterPageId(), part.untilPageId(), entry -> {
+                try {
+                    writer.writeStartElement("url");
+                    writeElement(writer, "loc", SITEMAP_URL_PATTERN.replace("{baseURL}", baseURL)
+                        .replace("{lang}", entry.language())
+                        .replace("{slug}", entry.slug()));
+                    if (entry.lastModified() != null) {
+                        writeElement(writer, "lastmod",
+                            entry.lastModified().truncatedTo(ChronoUnit.SECONDS).toString());
+                    }
+                    writer.writeEndElement();
+                } catch (XMLStreamException e) {
+                    throw new UncheckedIOException(new IOException(e));
+                }
+            });
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeElement(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+
+    private CMSSlugPermissionsDTO getPermissions(String slug, boolean slugExists) {
+        return new CMSSlugPermissionsDTO(slugExists,
+            permissionService.canWriteSlug(slug),
+            permissionService.canReadDraftSlug(slug),
+            permissionService.canReadArchivedSlug(slug),
+            permissionService.canDeleteSlug(slug));
+    }
+
+    /**
+     * GET /pages/by-slug/{slug}/published/{lang} - Get the translation of the highest published version of a page
+     * by its slug. The slug is given without its leading slash.
+     */
+    @GET
+    @Path("by-slug/{slug:.+}/published/{lang}")
+    @MCRRequireTransaction
+    public Response getPublishedTranslationBySlug(@PathParam("slug") String slug,
+        @PathParam("lang") String lang,
+        @Context Request request) {
+        String normalizedSlug = slug.startsWith("/") ? slug : "/" + slug;
+        return evaluatePreconditions(request, pageService.getPageValidatorBySlug(normalizedSlug),
+            revalidateCacheControl(), () -> pageService.getPublishedTranslationBySlug(normalizedSlug, lang)
+                .map(t -> Response.ok(t).build())
+                .orElse(Response.status(Response.Status.NOT_FOUND).build()));
     }
 
     /**
@@ -107,10 +478,12 @@ public class CMSPageResource {
     @GET
     @Path("{" + PATH_PARAM_PAGE_ID + "}")
     @MCRRequireTransaction
-    public Response getPage(@PathParam(PATH_PARAM_PAGE_ID) Long pageId) {
-        Optional<CMSPageDetailDTO> page = pageService.getPageById(pageId);
-        return page.map(p -> Response.ok(p).build())
-            .orElse(Response.status(Response.Status.FORBIDDEN).build());
+    public Response getPage(@PathParam(PATH_PARAM_PAGE_ID) Long pageId, @Context Request request) {
+        return evaluatePreconditions(request, pageService.getPageValidator(pageId), revalidateCacheControl(), () -> {
+            Optional<CMSPageDetailDTO> page = pageService.getPageById(pageId);
+            return page.map(p -> Response.ok(p).build())
+                .orElse(Response.status(Response.Status.FORBIDDEN).build());
+        });
     }
 
     /**
@@ -160,17 +533,23 @@ public class CMSPageResource {
     @GET
     @Path("{" + PATH_PARAM_PAGE_ID + "}/versions")
     @MCRRequireTransaction
-    public Response getVersions(@PathParam(PATH_PARAM_PAGE_ID) Long pageId) {
-        Optional<CMSPage> page = pageService.getPageEntityById(pageId);
-        if (page.isEmpty()) {
+    public Response getVersions(@PathParam(PATH_PARAM_PAGE_ID) Long pageId, @Context Request request) {
+        Optional<CMSCacheValidator> validator = pageService.getPageValidator(pageId);
+        if (validator.isEmpty()) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        if (!permissionService.canReadVersions(page.get())) {
-            return Response.status(Response.Status.FORBIDDEN).build();
-        }
+        return evaluatePreconditions(request, validator, revalidateCacheControl(), () -> {
+            Optional<CMSPage> page = pageService.getPageEntityById(pageId);
+            if (page.isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            if (!permissionService.canReadVersions(page.get())) {
+                return Response.status(Response.Status.FORBIDDEN).build();
+            }
 
-        List<CMSVersionInfoDTO> versions = pageService.getVersions(pageId);
-        return Response.ok(versions).build();
+            List<CMSVersionInfoDTO> versions = pageService.getVersions(pageId);
+            return Response.ok(versions).build();
+        });
     }
 
     /**
@@ -179,10 +558,12 @@ public class CMSPageResource {
     @GET
     @Path("{" + PATH_PARAM_PAGE_ID + "}/versions/current")
     @MCRRequireTransaction
-    public Response getCurrentVersion(@PathParam(PATH_PARAM_PAGE_ID) Long pageId) {
-        Optional<CMSVersionDetailDTO> version = pageService.getCurrentVersion(pageId);
-        return version.map(v -> Response.ok(v).build())
-            .orElse(Response.status(Response.Status.FORBIDDEN).build());
+    public Response getCurrentVersion(@PathParam(PATH_PARAM_PAGE_ID) Long pageId, @Context Request request) {
+        return evaluatePreconditions(request, pageService.getPageValidator(pageId), revalidateCacheControl(), () -> {
+            Optional<CMSVersionDetailDTO> version = pageService.getCurrentVersion(pageId);
+            return version.map(v -> Response.ok(v).build())
+                .orElse(Response.status(Response.Status.FORBIDDEN).build());
+        });
     }
 
     /**
@@ -191,10 +572,12 @@ public class CMSPageResource {
     @GET
     @Path("{" + PATH_PARAM_PAGE_ID + "}/versions/published")
     @MCRRequireTransaction
-    public Response getPublishedVersion(@PathParam(PATH_PARAM_PAGE_ID) Long pageId) {
-        Optional<CMSVersionDetailDTO> version = pageService.getPublishedVersion(pageId);
-        return version.map(v -> Response.ok(v).build())
-            .orElse(Response.status(Response.Status.NOT_FOUND).build());
+    public Response getPublishedVersion(@PathParam(PATH_PARAM_PAGE_ID) Long pageId, @Context Request request) {
+        return evaluatePreconditions(request, pageService.getPageValidator(pageId), revalidateCacheControl(), () -> {
+            Optional<CMSVersionDetailDTO> version = pageService.getPublishedVersion(pageId);
+            return version.map(v -> Response.ok(v).build())
+                .orElse(Response.status(Response.Status.NOT_FOUND).build());
+        });
     }
 
     /**
@@ -204,10 +587,14 @@ public class CMSPageResource {
     @Path("{" + PATH_PARAM_PAGE_ID + "}/versions/{versionNumber}")
     @MCRRequireTransaction
     public Response getVersion(@PathParam(PATH_PARAM_PAGE_ID) Long pageId,
-        @PathParam("versionNumber") Integer versionNumber) {
-        Optional<CMSVersionDetailDTO> version = pageService.getVersion(pageId, versionNumber);
-        return version.map(v -> Response.ok(v).build())
-            .orElse(Response.status(Response.Status.FORBIDDEN).build());
+        @PathParam("versionNumber") Integer versionNumber,
+        @Context Request request) {
+        return evaluatePreconditions(request, pageService.getVersionValidator(pageId, versionNumber),
+            revalidateCacheControl(), () -> {
+                Optional<CMSVersionDetailDTO> version = pageService.getVersion(pageId, versionNumber);
+                return version.map(v -> Response.ok(v).build())
+                    .orElse(Response.status(Response.Status.FORBIDDEN).build());
+            });
     }
 
     /**
@@ -238,9 +625,133 @@ public class CMSPageResource {
     @MCRRequireTransaction
     public Response getTranslation(@PathParam(PATH_PARAM_PAGE_ID) Long pageId,
         @PathParam("versionNumber") Integer versionNumber,
-        @PathParam("lang") String lang) {
-        Optional<CMSTranslationDetailDTO> translation = pageService.getTranslation(pageId, versionNumber, lang);
-        return translation.map(t -> Response.ok(t).build())
-            .orElse(Response.status(Response.Status.NOT_FOUND).build());
+        @PathParam("lang") String lang,
+        @Context Request request) {
+        return evaluatePreconditions(request, pageService.getVersionValidator(pageId, versionNumber),
+            revalidateCacheControl(), () -> {
+                Optional<CMSTranslationDetailDTO> translation = pageService.getTranslation(pageId, versionNumber,
+                    lang);
+                return translation.map(t -> Response.ok(t).build())
+                    .orElse(Response.status(Response.Status.NOT_FOUND).build());
+            });
+    }
+
+    /**
+     * GET /pages/{pageId}/versions/{fromVersionNumber}/diff/{toVersionNumber} - Get the differences between two
+     * versions per language, streamed as lists of operations
+     */
+    @GET
+    @Path("{" + PATH_PARAM_PAGE_ID + "}/versions/{fromVersionNumber}/diff/{toVersionNumber}")
+    @MCRRequireTransaction
+    public Response getVersionDiff(@PathParam(PATH_PARAM_PAGE_ID) Long pageId,
+        @PathParam("fromVersionNumber") Integer fromVersionNumber,
+        @PathParam("toVersionNumber") Integer toVersionNumber,
+        @Context Request request) {
+        return evaluatePreconditions(request,
+            pageService.getVersionDiffValidator(pageId, fromVersionNumber, toVersionNumber),
+            revalidateCacheControl(), () -> {
+                Optional<CMSVersionDiffDTO> diff = pageService.getVersionDiff(pageId, fromVersionNumber,
+                    toVersionNumber);
+                return diff.map(d -> Response.ok(streamVersionDiff(d)).build())
+                    .orElse(Response.status(Response.Status.FORBIDDEN).build());
+            });
+    }
+
+    /**
+     * Writes a diff operation by operation, without building the JSON document in memory.
+     */
+    private static StreamingOutput streamVersionDiff(CMSVersionDiffDTO diff) {
+        return output -> {
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+                generator.writeStartObject();
+                generator.writeNumberField("from_version", diff.getFromVersion());
+                generator.writeNumberField("to_version", diff.getToVersion());
+                generator.writeArrayFieldStart("translations");
+                for (CMSTranslationDiffDTO translation : diff.getTranslations()) {
+                    generator.writeStartObject();
+                    generator.writeStringField("language", translation.getLanguage());
+                    generator.writeStringField("from_title", translation.getFromTitle());
+                    generator.writeStringField("to_title", translation.getToTitle());
+                    generator.writeArrayFieldStart("operations");
+                    for (List<String> operation : translation.getOperations()) {
+                        generator.writeStartArray();
+                        generator.writeString(operation.get(0));
+                        generator.writeString(operation.get(1));
+                        generator.writeEndArray();
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    /**
+     * Evaluates the conditional request headers against the given validator and only builds the response if the
+     * client's copy is outdated. The ETag includes the current user keyed like the cached permission decisions, see
+     * {@link CMSPermissionCache#getSubjectKey()}, because the response depends on the user's permissions.
+     *
+     * @param validator       the validator of the requested resource, empty if the resource does not exist
+     * @param cacheControl    the cache control for successful and not modified responses
+     * @param responseBuilder builds the response if the preconditions do not apply
+     */
+    private Response evaluatePreconditions(Request request, Optional<CMSCacheValidator> validator,
+        CacheControl cacheControl, Supplier<Response> responseBuilder) {
+        if (validator.isEmpty()) {
+            return responseBuilder.get();
+        }
+        EntityTag entityTag = createEntityTag(validator.get());
+        Date lastModified = Optional.ofNullable(validator.get().lastModified())
+            .map(instant -> Date.from(instant.truncatedTo(ChronoUnit.SECONDS)))
+            .orElse(null);
+        Response.ResponseBuilder preconditionResponse = lastModified == null
+            ? request.evaluatePreconditions(entityTag)
+            : request.evaluatePreconditions(lastModified, entityTag);
+        if (preconditionResponse != null) {
+            return preconditionResponse.tag(entityTag).cacheControl(cacheControl).build();
+        }
+        Response response = responseBuilder.get();
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            return response;
+        }
+        return Response.fromResponse(response)
+            .tag(entityTag)
+            .lastModified(lastModified)
+            .cacheControl(cacheControl)
+            .build();
+    }
+
+    private EntityTag createEntityTag(CMSCacheValidator validator) {
+        String subject = CMSPermissionCache.getInstance().getSubjectKey();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((validator.key() + "|" + subject).getBytes(StandardCharsets.UTF_8));
+            return new EntityTag(HexFormat.of().formatHex(hash, 0, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Cache control for responses that change with the page: may be stored, but must be revalidated.
+     */
+    private static CacheControl revalidateCacheControl() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setNoCache(true);
+        return cacheControl;
+    }
+
+    private String escapeJson(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\")
+            .replace("\"", "\\\"")
+            .replace("\n", "\\n")
+            .replace("\r", "\\r")
+            .replace("\t", "\\t");
     }
 }
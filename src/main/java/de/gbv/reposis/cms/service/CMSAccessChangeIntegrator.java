@@ -0,0 +1,118 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Clears the {@link CMSPermissionCache} after a transaction changing ACL rules or rule mappings of the MyCoRe JPA
+ * access system has been committed. Registered as Hibernate {@link Integrator} via
+ * <code>META-INF/services</code>, so it sees every change made through JPA in this process, independent of the
+ * code path (ACL editor, CLI, REST). Changes made by other processes or by bulk JPQL statements are not seen; these
+ * still expire after <code>MCR.CMS.Cache.Permission.ExpireAfterWrite</code> seconds.
+ */
+public class CMSAccessChangeIntegrator implements Integrator {
+
+    private static final String ACCESS_ENTITY_PREFIX = "org.mycore.backend.jpa.access.";
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+        SessionFactoryImplementor sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        AccessChangeListener listener = new AccessChangeListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        // listeners are discarded with the session factory
+    }
+
+    static boolean isAccessEntity(String entityName) {
+        return entityName != null && entityName.startsWith(ACCESS_ENTITY_PREFIX);
+    }
+
+    private static final class AccessChangeListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final Logger LOGGER = LogManager.getLogger();
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return isAccessEntity(persister.getEntityName());
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            changed(event.getPersister());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            changed(event.getPersister());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            changed(event.getPersister());
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+            // nothing changed
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+            // nothing changed
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+            // nothing changed
+        }
+
+        private void changed(EntityPersister persister) {
+            if (isAccessEntity(persister.getEntityName())) {
+                LOGGER.debug("ACL entity {} changed, clearing CMS permission cache", persister::getEntityName);
+                CMSPermissionCache.getInstance().onAccessRulesChanged();
+            }
+        }
+    }
+}
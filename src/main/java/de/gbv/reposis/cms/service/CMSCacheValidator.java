@@ -0,0 +1,30 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.time.Instant;
+
+/**
+ * HTTP cache validator data of a resource, resolved without loading the resource itself.
+ *
+ * @param key          identifies the state of the resource, changes whenever the resource changes
+ * @param lastModified the last modification time of the resource, or <code>null</code> if unknown
+ */
+public record CMSCacheValidator(String key, Instant lastModified) {
+}
@@ -0,0 +1,192 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import org.mycore.common.config.MCRConfiguration2;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import de.gbv.reposis.cms.model.CMSTranslationContent;
+
+/**
+ * Delta storage of translation contents.
+ * If enabled with <code>MCR.CMS.Content.Delta.SnapshotInterval</code>, a new content is stored as a delta against
+ * the content of the same language in the previous version of the page, see {@link CMSTextDiff}. Every
+ * <code>SnapshotInterval</code>-th content of a chain is stored in full, so rebuilding a text applies at most
+ * <code>SnapshotInterval - 1</code> deltas. Contents are stored in full as well if the delta would not save at least
+ * half of the text.
+ * <p>
+ * Rebuilt texts are kept in a process-wide cache keyed by content ID. Contents are immutable, so entries never need
+ * to be invalidated. Written contents are cached right away, so reads of the newest versions and deltas against them
+ * do not walk the chain.
+ */
+public final class CMSContentStore {
+
+    /**
+     * Property key for the number of contents per chain, after which a content is stored in full again.
+     * Values below 2 disable delta storage.
+     */
+    public static final String PROPERTY_SNAPSHOT_INTERVAL = "MCR.CMS.Content.Delta.SnapshotInterval";
+
+    /**
+     * Property key for the maximum number of changed tokens, above which a content is stored in full.
+     */
+    public static final String PROPERTY_MAX_EDITS = "MCR.CMS.Content.Delta.MaxEdits";
+
+    /**
+     * Property key for the maximum size of the cached texts in bytes.
+     */
+    public static final String PROPERTY_CACHE_MAX_SIZE = "MCR.CMS.Cache.Content.MaxSize";
+
+    /**
+     * Default snapshot interval: delta storage disabled.
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 0;
+
+    /**
+     * Default maximum number of changed tokens.
+     */
+    public static final int DEFAULT_MAX_EDITS = 500;
+
+    /**
+     * Default maximum cache size: 16 MB.
+     */
+    public static final long DEFAULT_CACHE_MAX_SIZE = 16 * 1024 * 1024;
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private static final CMSContentStore INSTANCE = new CMSContentStore();
+
+    private final int snapshotInterval;
+
+    private final int maxEdits;
+
+    private final Cache<Long, String> texts;
+
+    private CMSContentStore() {
+        this(MCRConfiguration2.getInt(PROPERTY_SNAPSHOT_INTERVAL).orElse(DEFAULT_SNAPSHOT_INTERVAL),
+            MCRConfiguration2.getInt(PROPERTY_MAX_EDITS).orElse(DEFAULT_MAX_EDITS),
+            MCRConfiguration2.getLong(PROPERTY_CACHE_MAX_SIZE).orElse(DEFAULT_CACHE_MAX_SIZE));
+    }
+
+    /**
+     * Creates a content store independent of the configuration, for tests.
+     */
+    CMSContentStore(int snapshotInterval, int maxEdits, long cacheMaxSize) {
+        this.snapshotInterval = snapshotInterval;
+        this.maxEdits = maxEdits;
+        texts = CacheBuilder.newBuilder()
+            .maximumWeight(cacheMaxSize)
+            .weigher((Long contentId, String text) -> ENTRY_OVERHEAD + text.length() * Character.BYTES)
+            .recordStats()
+            .build();
+    }
+
+    public static CMSContentStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns whether new contents are stored as deltas.
+     */
+    public boolean isEnabled() {
+        return snapshotInterval > 1;
+    }
+
+    /**
+     * Returns the full text of a content, applying the deltas of its chain. Base contents are loaded lazily, starting
+     * with the newest, until a cached text or a full content is reached.
+     *
+     * @throws IllegalStateException if a stored delta does not match its base
+     */
+    public String getText(CMSTranslationContent content) {
+        CMSTranslationContent base = content.getBase();
+        if (base == null) {
+            return content.getStoredContent();
+        }
+        Long contentId = content.getId();
+        String cached = contentId == null ? null : texts.getIfPresent(contentId);
+        if (cached != null) {
+            return cached;
+        }
+        String text;
+        try {
+            text = CMSTextDiff.apply(getText(base), content.getStoredContent());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Could not rebuild content " + contentId + " from base " + base.getId(),
+                e);
+        }
+        if (contentId != null) {
+            texts.put(contentId, text);
+        }
+        return text;
+    }
+
+    /**
+     * Stores a new content as a delta against the given base, if delta storage is enabled, the chain of the base is
+     * shorter than the snapshot interval and the delta is small enough. Otherwise the content is left in full.
+     *
+     * @param content a new content holding its full text
+     * @param base    the content of the same language in the previous version, may be <code>null</code>
+     */
+    public void encode(CMSTranslationContent content, CMSTranslationContent base) {
+        String text = content.getStoredContent();
+        if (!isEnabled() || base == null || text == null) {
+            return;
+        }
+        int depth = base.getDeltaDepth() + 1;
+        if (depth >= snapshotInterval) {
+            return;
+        }
+        String baseText = getText(base);
+        if (baseText == null) {
+            return;
+        }
+        CMSTextDiff.diff(baseText, text, maxEdits)
+            .map(CMSTextDiff::encode)
+            .filter(delta -> delta.length() <= text.length() / 2)
+            .ifPresent(delta -> content.setDelta(base, depth, delta));
+    }
+
+    /**
+     * Caches the full text of a persisted content.
+     */
+    public void put(Long contentId, String text) {
+        if (contentId != null && text != null) {
+            texts.put(contentId, text);
+        }
+    }
+
+    /**
+     * Removes all cached texts.
+     */
+    public void invalidateAll() {
+        texts.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return texts.stats();
+    }
+
+    public long size() {
+        return texts.size();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+
+import de.gbv.reposis.cms.model.CMSLanguage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceException;
+
+/**
+ * Process-wide registry of the IDs of all CMS languages, keyed by language code.
+ * All languages are loaded with one query on first use and reloaded whenever an unknown code is requested, so
+ * languages created by other processes are picked up as well.
+ * <p>
+ * Unknown languages are created in a separate transaction that is committed immediately. If another process creates
+ * the same language concurrently, the unique constraint on the code rejects one of the inserts; the loser reads the
+ * winner's row instead of failing the transaction of the caller.
+ */
+public final class CMSLanguageRegistry {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final CMSLanguageRegistry INSTANCE = new CMSLanguageRegistry();
+
+    private final Map<String, Long> languageIds = new ConcurrentHashMap<>();
+
+    private CMSLanguageRegistry() {
+    }
+
+    public static CMSLanguageRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a reference to the language with the given code in the given entity manager, creating the language
+     * if it does not exist yet. The reference is resolved without a query.
+     *
+     * @param em   the entity manager of the current transaction
+     * @param code the language code
+     * @return the language
+     */
+    public CMSLanguage getLanguage(EntityManager em, String code) {
+        return em.getReference(CMSLanguage.class, getLanguageId(code));
+    }
+
+    /**
+     * Returns the ID of the language with the given code, creating the language if it does not exist yet.
+     */
+    public Long getLanguageId(String code) {
+        Long id = languageIds.get(code);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = languageIds.get(code);
+            if (id == null) {
+                reload();
+                id = languageIds.get(code);
+            }
+            if (id == null) {
+                id = create(code);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Removes all entries, they are reloaded on the next request.
+     */
+    public void invalidateAll() {
+        languageIds.clear();
+    }
+
+    public int size() {
+        return languageIds.size();
+    }
+
+    private void reload() {
+        try (EntityManager em = MCREntityManagerProvider.getEntityManagerFactory().createEntityManager()) {
+            List<Object[]> rows = em.createQuery("SELECT l.code, l.id FROM CMSLanguage l", Object[].class)
+                .getResultList();
+            for (Object[] row : rows) {
+                languageIds.put((String) row[0], (Long) row[1]);
+            }
+        }
+    }
+
+    private Long create(String code) {
+        try (EntityManager em = MCREntityManagerProvider.getEntityManagerFactory().createEntityManager()) {
+            return create(em, code);
+        }
+    }
+
+    private Long create(EntityManager em, String code) {
+        EntityTransaction transaction = em.getTransaction();
+        try {
+            transaction.begin();
+            CMSLanguage language = new CMSLanguage(code, code);
+            em.persist(language);
+            transaction.commit();
+            LOGGER.info("Created CMS language {}", code);
+            languageIds.put(code, language.getId());
+            return language.getId();
+        } catch (PersistenceException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            LOGGER.debug("Creating CMS language {} failed, it was probably created concurrently", code, e);
+            reload();
+            Long id = languageIds.get(code);
+            if (id == null) {
+                throw e;
+            }
+            return id;
+        }
+    }
+}
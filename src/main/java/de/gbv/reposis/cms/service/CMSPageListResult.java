@@ -0,0 +1,50 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import de.gbv.reposis.cms.dto.CMSPageListDTO;
+
+/**
+ * One page of a keyset paginated page listing.
+ */
+public class CMSPageListResult {
+
+    private final List<CMSPageListDTO> pages;
+
+    private final String nextCursor;
+
+    public CMSPageListResult(List<CMSPageListDTO> pages, String nextCursor) {
+        this.pages = pages;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<CMSPageListDTO> getPages() {
+        return pages;
+    }
+
+    /**
+     * Returns the cursor for the next listing request, or empty if there are no more pages.
+     */
+    public Optional<String> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import static de.gbv.reposis.cms.service.CMSPermissionService.CMS_PAGE_PERMISSION_PREFIX;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import de.gbv.reposis.cms.dto.CMSPageListDTO;
+import de.gbv.reposis.cms.dto.CMSVersionSummaryDTO;
+import de.gbv.reposis.cms.model.CMSPageStatus;
+
+/**
+ * Read-only projection of a CMS page together with the newest version of each status.
+ * Used to build page listings and to check page visibility without loading version entities.
+ */
+public class CMSPageProjection {
+
+    private final Long id;
+
+    private final String slug;
+
+    private final Instant createdAt;
+
+    private final Instant updatedAt;
+
+    private final Map<CMSPageStatus, CMSVersionSummaryDTO> heads = new EnumMap<>(CMSPageStatus.class);
+
+    public CMSPageProjection(Long id, String slug, Instant createdAt, Instant updatedAt) {
+        this.id = id;
+        this.slug = slug;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Returns the permission ID for the projected page.
+     * Format: cms:page:{slug}
+     */
+    public String getPermissionId() {
+        return CMS_PAGE_PERMISSION_PREFIX + slug;
+    }
+
+    /**
+     * Registers the newest version of the given status.
+     */
+    public void putHead(CMSPageStatus status, Integer versionNumber, Instant versionCreatedAt) {
+        heads.put(status, new CMSVersionSummaryDTO(versionNumber, status.getValue(), versionCreatedAt));
+    }
+
+    /**
+     * Returns the status of the last non-draft version, or <code>null</code> if the page only has drafts.
+     */
+    public CMSPageStatus getLastNonDraftStatus() {
+        return newestHead(status -> status != CMSPageStatus.DRAFT)
+            .map(head -> CMSPageStatus.fromValue(head.getStatus()))
+            .orElse(null);
+    }
+
+    /**
+     * Returns the newest version whose status matches the given predicate.
+     *
+     * @param statusFilter decides which statuses are taken into account
+     * @return the summary of the newest matching version
+     */
+    public Optional<CMSVersionSummaryDTO> newestHead(Predicate<CMSPageStatus> statusFilter) {
+        CMSVersionSummaryDTO newest = null;
+        for (Map.Entry<CMSPageStatus, CMSVersionSummaryDTO> entry : heads.entrySet()) {
+            if (statusFilter.test(entry.getKey())
+                && (newest == null || entry.getValue().getVersionNumber() > newest.getVersionNumber())) {
+                newest = entry.getValue();
+            }
+        }
+        return Optional.ofNullable(newest);
+    }
+
+    /**
+     * Converts this projection to a list DTO, using the newest version matching the given filter as current
+     * version.
+     */
+    public CMSPageListDTO toPageListDTO(Predicate<CMSPageStatus> readableStatus) {
+        CMSPageListDTO dto = new CMSPageListDTO();
+        dto.setId(id);
+        dto.setSlug(slug);
+        dto.setCreatedAt(createdAt);
+        dto.setUpdatedAt(updatedAt);
+        newestHead(readableStatus).ifPresent(dto::setCurrentVersion);
+        return dto;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import de.gbv.reposis.cms.model.CMSPageStatus;
+
+/**
+ * Filter, sort and keyset pagination parameters for page listings.
+ */
+public class CMSPageQuery {
+
+    /**
+     * Default number of pages returned by one listing request.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Maximum number of pages returned by one listing request.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String CURSOR_SEPARATOR = ":";
+
+    private String slugPrefix;
+
+    private CMSPageStatus status;
+
+    private Instant updatedSince;
+
+    private Sort sort = Sort.UPDATED;
+
+    private String cursor;
+
+    private int limit = DEFAULT_LIMIT;
+
+    public String getSlugPrefix() {
+        return slugPrefix;
+    }
+
+    public void setSlugPrefix(String slugPrefix) {
+        this.slugPrefix = slugPrefix;
+    }
+
+    /**
+     * The status the current version of a listed page must have, or <code>null</code> for any status.
+     */
+    public CMSPageStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CMSPageStatus status) {
+        this.status = status;
+    }
+
+    public Instant getUpdatedSince() {
+        return updatedSince;
+    }
+
+    public void setUpdatedSince(Instant updatedSince) {
+        this.updatedSince = updatedSince;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public void setSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    /**
+     * The opaque cursor returned by the previous listing request, or <code>null</code> for the first page.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Sets the maximum number of returned pages.
+     *
+     * @throws IllegalArgumentException if the limit is not between 1 and {@link #MAX_LIMIT}
+     */
+    public void setLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Creates the cursor pointing behind the given page for the current sort order.
+     */
+    public String createCursor(CMSPageProjection page) {
+        String value = sort == Sort.SLUG ? page.getSlug() : page.getUpdatedAt().toString();
+        String raw = sort.getValue() + CURSOR_SEPARATOR + page.getId() + CURSOR_SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the cursor of this query.
+     *
+     * @return the decoded cursor, or <code>null</code> if no cursor is set
+     * @throws IllegalArgumentException if the cursor is malformed or was created for another sort order
+     */
+    public Cursor decodeCursor() {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(CURSOR_SEPARATOR, 3);
+            if (parts.length != 3 || !parts[0].equals(sort.getValue())) {
+                throw new IllegalArgumentException("Invalid cursor for sort order: " + sort.getValue());
+            }
+            Long id = Long.valueOf(parts[1]);
+            return sort == Sort.SLUG ? new Cursor(id, parts[2], null) : new Cursor(id, null, Instant.parse(parts[2]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Sort orders supported by page listings.
+     */
+    public enum Sort {
+        /**
+         * Most recently updated pages first, ties broken by descending ID.
+         */
+        UPDATED("updated"),
+
+        /**
+         * Pages by ascending slug, ties broken by ascending ID.
+         */
+        SLUG("slug");
+
+        private final String value;
+
+        Sort(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Sort fromValue(String value) {
+            for (Sort sort : values()) {
+                if (sort.value.equalsIgnoreCase(value)) {
+                    return sort;
+                }
+            }
+            throw new IllegalArgumentException("Unknown sort: " + value);
+        }
+    }
+
+    /**
+     * Decoded keyset position: the ID and sort value of the last page of the previous listing request.
+     *
+     * @param id        the page ID
+     * @param slug      the slug, if sorted by slug
+     * @param updatedAt the update timestamp, if sorted by update time
+     */
+    public record Cursor(Long id, String slug, Instant updatedAt) {
+    }
+}
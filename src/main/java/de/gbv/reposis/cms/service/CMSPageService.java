@@ -18,30 +18,60 @@
 
 package de.gbv.reposis.cms.service;
 
+import static de.gbv.reposis.cms.service.CMSPermissionService.CMS_PAGE_PERMISSION_PREFIX;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
 import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRSession;
 import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.config.MCRConfiguration2;
 
 import de.gbv.reposis.cms.dto.CMSCreateVersionDTO;
 import de.gbv.reposis.cms.dto.CMSPageDetailDTO;
 import de.gbv.reposis.cms.dto.CMSPageExportDTO;
 import de.gbv.reposis.cms.dto.CMSPageListDTO;
+import de.gbv.reposis.cms.dto.CMSPageTreeNodeDTO;
+import de.gbv.reposis.cms.dto.CMSSearchHitDTO;
+import de.gbv.reposis.cms.dto.CMSSearchResultDTO;
 import de.gbv.reposis.cms.dto.CMSTranslationDTO;
 import de.gbv.reposis.cms.dto.CMSTranslationDetailDTO;
+import de.gbv.reposis.cms.dto.CMSTranslationDiffDTO;
 import de.gbv.reposis.cms.dto.CMSVersionDetailDTO;
+import de.gbv.reposis.cms.dto.CMSVersionDiffDTO;
 import de.gbv.reposis.cms.dto.CMSVersionExportDTO;
 import de.gbv.reposis.cms.dto.CMSVersionInfoDTO;
-import de.gbv.reposis.cms.dto.CMSVersionSummaryDTO;
 import de.gbv.reposis.cms.model.CMSLanguage;
 import de.gbv.reposis.cms.model.CMSPage;
 import de.gbv.reposis.cms.model.CMSPageStatus;
 import de.gbv.reposis.cms.model.CMSPageVersion;
 import de.gbv.reposis.cms.model.CMSPageVersionTranslation;
+import de.gbv.reposis.cms.model.CMSTranslationContent;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.TypedQuery;
 
 /**
@@ -49,43 +79,184 @@ import jakarta.persistence.TypedQuery;
  */
 public class CMSPageService {
 
-    private final CMSPermissionService permissionService = new CMSPermissionService();
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String PARAM_SLUG = "slug";
+
+    private static final String PARAM_PAGE_ID = "pageId";
+
+    private static final String PARAM_VERSION_NUMBER = "versionNumber";
+
+    private static final String PARAM_LANG = "lang";
+
+    private static final String PARAM_DRAFT = "draft";
+
+    private static final String HINT_FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+
+    private static final String HINT_FETCH_SIZE = "org.hibernate.fetchSize";
+
+    private static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+
+    private static final int SITEMAP_FETCH_SIZE = 1000;
+
+    private static final AtomicReference<SitemapParts> SITEMAP_PARTS = new AtomicReference<>();
+
+    private static final String SITEMAP_FROM
+        = " FROM CMSPage p JOIN CMSPageVersion v ON v.id = p.latestPublishedVersionId"
+            + " JOIN v.translations t JOIN t.language l WHERE p.latestNonDraftStatus = :published";
+
+    /**
+     * Maximum number of pages whose versions are loaded with one statement during export.
+     */
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    private static final int IN_BATCH_SIZE = 500;
+
+    private static final int MAX_ALLOCATION_ATTEMPTS = 10;
+
+    private static final String PROPERTY_JDBC_BATCH_SIZE = "MCR.CMS.JPA.BatchSize";
+
+    private static final int DEFAULT_JDBC_BATCH_SIZE = 50;
+
+    private static final String PROPERTY_DIFF_MAX_EDITS = "MCR.CMS.Diff.MaxEdits";
+
+    private static final int DEFAULT_DIFF_MAX_EDITS = 2000;
+
+    private static final String PROPERTY_LIST_MAX_SCANNED_ROWS = "MCR.CMS.List.MaxScannedRows";
+
+    private static final int DEFAULT_LIST_MAX_SCANNED_ROWS = 5000;
+
+    /**
+     * Minimum number of pages fetched per batch when listing, so small limits with few readable pages do not cause
+     * one statement per page.
+     */
+    private static final int MIN_LIST_BATCH_SIZE = 100;
+
+    private static final String PAGE_PROJECTION_QUERY
+        = "SELECT p.id, p.slug, p.createdAt, p.updatedAt FROM CMSPage p";
+
+    private final CMSPermissionService permissionService;
+
+    private final CMSPublishedContentCache publishedContentCache = CMSPublishedContentCache.getInstance();
+
+    private final CMSVersionCache versionCache = CMSVersionCache.getInstance();
+
+    private final CMSLanguageRegistry languageRegistry = CMSLanguageRegistry.getInstance();
+
+    private final CMSContentStore contentStore;
+
+    private final CMSVersionDiffCache versionDiffCache = CMSVersionDiffCache.getInstance();
+
+    private final CMSSearchIndex searchIndex = CMSSearchIndex.getInstance();
+
+    private final CMSSlugTree slugTree = CMSSlugTree.getInstance();
+
+    private final int diffMaxEdits = MCRConfiguration2.getInt(PROPERTY_DIFF_MAX_EDITS).orElse(DEFAULT_DIFF_MAX_EDITS);
+
+    private final int jdbcBatchSize = MCRConfiguration2.getInt(PROPERTY_JDBC_BATCH_SIZE)
+        .orElse(DEFAULT_JDBC_BATCH_SIZE);
+
+    private final int listMaxScannedRows = MCRConfiguration2.getInt(PROPERTY_LIST_MAX_SCANNED_ROWS)
+        .orElse(DEFAULT_LIST_MAX_SCANNED_ROWS);
+
+    public CMSPageService() {
+        this(new CMSPermissionService());
+    }
+
+    /**
+     * Creates a page service sharing the permission decisions of the given permission service.
+     */
+    public CMSPageService(CMSPermissionService permissionService) {
+        this(permissionService, CMSContentStore.getInstance());
+    }
+
+    /**
+     * Creates a page service storing contents with the given content store, for tests.
+     */
+    CMSPageService(CMSPermissionService permissionService, CMSContentStore contentStore) {
+        this.permissionService = permissionService;
+        this.contentStore = contentStore;
+    }
 
     /**
      * Get all pages that the current user has read permission for.
+     * Pages and their newest version per status are loaded by two projection queries, so no version entities are
+     * loaded regardless of the number of pages.
      */
     public List<CMSPageListDTO> getAllPages() {
         EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-        TypedQuery<CMSPage> query = em.createQuery("SELECT p FROM CMSPage p", CMSPage.class);
-        return query.getResultList().stream()
-            .filter(page -> {
-                List<CMSPageVersion> versions = getVersionEntities(em, page.getId());
-                return permissionService.canReadPage(page, versions);
-            })
+        TypedQuery<Object[]> query = em.createQuery(PAGE_PROJECTION_QUERY, Object[].class);
+        List<CMSPageProjection> projections = toPageProjections(query.getResultList());
+        loadVersionHeads(em, projections, false);
+        return projections.stream()
+            .filter(this::canReadPage)
             .map(this::toPageListDTO)
             .collect(Collectors.toList());
     }
 
     /**
-     * Get a page by slug.
+     * List pages the current user has read permission for, filtered, sorted and paginated by keyset.
+     * Pages are fetched in batches ordered by the sort key and the ID, so the cost of a request does not depend on
+     * how far the client has already paged. Batches are repeated until the limit is reached, because permission and
+     * status filtering happens after the query. At most <code>MCR.CMS.List.MaxScannedRows</code> pages are scanned
+     * per request; if the limit is not reached by then, fewer pages are returned together with the cursor of the last
+     * scanned page, so the client continues behind it.
+     *
+     * @param pageQuery the filter, sort and pagination parameters
+     * @return the listed pages and the cursor for the next request
+     * @throws IllegalArgumentException if the cursor of the query is invalid
      */
-    public Optional<CMSPageListDTO> getPageBySlug(String slug) {
+    public CMSPageListResult listPages(CMSPageQuery pageQuery) {
         EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-        TypedQuery<CMSPage> query = em.createQuery(
-            "SELECT p FROM CMSPage p WHERE p.slug = :slug", CMSPage.class);
-        query.setParameter("slug", slug);
-        try {
-            CMSPage page = query.getSingleResult();
-            List<CMSPageVersion> versions = getVersionEntities(em, page.getId());
-            if (permissionService.canReadPage(page, versions)) {
-                return Optional.of(toPageListDTO(page));
+        CMSPageQuery.Cursor cursor = pageQuery.decodeCursor();
+        int limit = pageQuery.getLimit();
+        int batchSize = Math.max(limit, MIN_LIST_BATCH_SIZE);
+        List<CMSPageListDTO> pages = new ArrayList<>(limit);
+        int scanned = 0;
+        while (true) {
+            int requested = Math.min(batchSize, Math.max(listMaxScannedRows - scanned, 1));
+            List<CMSPageProjection> batch = toPageProjections(createKeysetQuery(em, pageQuery, cursor)
+                .setMaxResults(requested)
+                .getResultList());
+            scanned += batch.size();
+            loadVersionHeads(em, batch, true);
+            for (CMSPageProjection projection : batch) {
+                if (canReadPage(projection)) {
+                    CMSPageListDTO dto = toPageListDTO(projection);
+                    if (matchesStatus(dto, pageQuery.getStatus())) {
+                        pages.add(dto);
+                        if (pages.size() == limit) {
+                            return new CMSPageListResult(pages, pageQuery.createCursor(projection));
+                        }
+                    }
+                }
             }
-            return Optional.empty();
-        } catch (NoResultException e) {
-            return Optional.empty();
+            if (batch.size() < requested) {
+                return new CMSPageListResult(pages, null);
+            }
+            CMSPageProjection last = batch.getLast();
+            if (scanned >= listMaxScannedRows) {
+                return new CMSPageListResult(pages, pageQuery.createCursor(last));
+            }
+            cursor = new CMSPageQuery.Cursor(last.getId(), last.getSlug(), last.getUpdatedAt());
         }
     }
 
+    /**
+     * Get a page by slug.
+     */
+    public Optional<CMSPageListDTO> getPageBySlug(String slug) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        TypedQuery<Object[]> query = em.createQuery(PAGE_PROJECTION_QUERY + " WHERE p.slug = :slug", Object[].class);
+        query.setParameter(PARAM_SLUG, slug);
+        List<CMSPageProjection> projections = toPageProjections(query.getResultList());
+        loadVersionHeads(em, projections, true);
+        return projections.stream()
+            .filter(this::canReadPage)
+            .findFirst()
+            .map(this::toPageListDTO);
+    }
+
     /**
      * Check if a page with the given slug exists.
      */
@@ -93,10 +264,25 @@ public class CMSPageService {
         EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
         TypedQuery<Long> query = em.createQuery(
             "SELECT COUNT(p) FROM CMSPage p WHERE p.slug = :slug", Long.class);
-        query.setParameter("slug", slug);
+        query.setParameter(PARAM_SLUG, slug);
         return query.getSingleResult() > 0;
     }
 
+    /**
+     * Returns those of the given slugs for which a page exists, with one query per {@value #IN_BATCH_SIZE} slugs.
+     */
+    public Set<String> getExistingSlugs(Collection<String> slugs) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        List<String> slugList = List.copyOf(slugs);
+        Set<String> existing = new HashSet<>();
+        for (int start = 0; start < slugList.size(); start += IN_BATCH_SIZE) {
+            existing.addAll(em.createQuery("SELECT p.slug FROM CMSPage p WHERE p.slug IN :slugs", String.class)
+                .setParameter("slugs", slugList.subList(start, Math.min(start + IN_BATCH_SIZE, slugList.size())))
+                .getResultList());
+        }
+        return existing;
+    }
+
     /**
      * Get a page by ID with all versions.
      */
@@ -106,8 +292,8 @@ public class CMSPageService {
         if (page == null) {
             return Optional.empty();
         }
-        List<CMSPageVersion> versions = getVersionEntities(em, pageId);
-        if (!permissionService.canReadPage(page, versions)) {
+        ensureHeads(em, page);
+        if (!permissionService.canReadPage(page)) {
             return Optional.empty();
         }
         return Optional.of(toPageDetailDTO(page));
@@ -122,6 +308,69 @@ public class CMSPageService {
         return Optional.ofNullable(page);
     }
 
+    /**
+     * Get the cache validator of all pages with one aggregate query over the indexes of the page table. Every write
+     * to a page advances its update time, creating or importing a page adds a higher ID and deleting one lowers the
+     * count, so the validator changes with every change in any process and is the same on all nodes.
+     */
+    public CMSCacheValidator getPagesValidator() {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        Object[] row = em.createQuery("SELECT COUNT(p), MAX(p.id), MAX(p.updatedAt) FROM CMSPage p", Object[].class)
+            .getSingleResult();
+        return new CMSCacheValidator("pages:" + row[0] + ":" + row[1] + ":" + row[2], null);
+    }
+
+    /**
+     * Get the cache validator of a page and everything derived from its versions, without loading the page.
+     *
+     * @return the validator, or empty if the page does not exist
+     */
+    public Optional<CMSCacheValidator> getPageValidator(Long pageId) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        TypedQuery<Instant> query = em.createQuery(
+            "SELECT p.updatedAt FROM CMSPage p WHERE p.id = :pageId", Instant.class);
+        query.setParameter(PARAM_PAGE_ID, pageId);
+        return query.getResultStream().findFirst()
+            .map(updatedAt -> new CMSCacheValidator("page:" + pageId + ":" + updatedAt.toEpochMilli(), updatedAt));
+    }
+
+    /**
+     * Get the cache validator of the page with the given slug, see {@link #getPageValidator(Long)}.
+     */
+    public Optional<CMSCacheValidator> getPageValidatorBySlug(String slug) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        TypedQuery<Object[]> query = em.createQuery(
+            "SELECT p.id, p.updatedAt FROM CMSPage p WHERE p.slug = :slug", Object[].class);
+        query.setParameter(PARAM_SLUG, slug);
+        return query.getResultStream().findFirst()
+            .map(row -> new CMSCacheValidator("page:" + row[0] + ":" + ((Instant) row[1]).toEpochMilli(),
+                (Instant) row[1]));
+    }
+
+    /**
+     * Get the cache validator of a version. Versions are never modified, only deleted by the retention policy, and a
+     * version created later with the same number gets a new ID. So the validator is derived from the version ID alone
+     * and served from the {@link CMSVersionCache} if the version is cached.
+     *
+     * @return the validator, or empty if the version does not exist
+     */
+    public Optional<CMSCacheValidator> getVersionValidator(Long pageId, Integer versionNumber) {
+        Optional<CMSCacheValidator> cached = versionCache.getVersion(pageId, versionNumber)
+            .map(entry -> new CMSCacheValidator("version:" + entry.versionId(), entry.version().getCreatedAt()));
+        if (cached.isPresent()) {
+            return cached;
+        }
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        TypedQuery<Object[]> query = em.createQuery(
+            "SELECT v.id, v.createdAt FROM CMSPageVersion v"
+                + " WHERE v.page.id = :pageId AND v.versionNumber = :versionNumber",
+            Object[].class);
+        query.setParameter(PARAM_PAGE_ID, pageId);
+        query.setParameter(PARAM_VERSION_NUMBER, versionNumber);
+        return query.setMaxResults(1).getResultStream().findFirst()
+            .map(row -> new CMSCacheValidator("version:" + row[0], (Instant) row[1]));
+    }
+
     /**
      * Create a new page.
      */
@@ -130,6 +379,8 @@ public class CMSPageService {
         CMSPage page = new CMSPage(slug);
         em.persist(page);
         em.flush(); // Ensure ID is generated
+        invalidatePageCaches(page.getId(), page.getSlug());
+        addToSlugTree(page);
         return page;
     }
 
@@ -147,10 +398,12 @@ public class CMSPageService {
         }
 
         // Create a new archived version
-        int nextVersionNumber = getNextVersionNumber(page);
+        ensureHeads(em, page);
+        int nextVersionNumber = allocateVersionNumber(em, page);
         CMSPageVersion archivedVersion = new CMSPageVersion(page, nextVersionNumber, userId, CMSPageStatus.ARCHIVED);
-        page.addVersion(archivedVersion);
-        em.persist(archivedVersion);
+        addVersion(em, page, archivedVersion);
+        invalidatePageCaches(page.getId(), page.getSlug());
+        updateSearchIndex(em, page);
         return true;
     }
 
@@ -164,11 +417,11 @@ public class CMSPageService {
         if (page == null) {
             return List.of();
         }
-        List<CMSPageVersion> versions = getVersionEntities(em, pageId);
-        if (!permissionService.canReadPage(page, versions) || !permissionService.canReadVersions(page)) {
+        ensureHeads(em, page);
+        if (!permissionService.canReadPage(page) || !permissionService.canReadVersions(page)) {
             return List.of();
         }
-        return versions.stream()
+        return getVersionEntities(em, pageId).stream()
             .filter(v -> permissionService.canReadVersion(page, v))
             .map(this::toVersionInfoDTO)
             .collect(Collectors.toList());
@@ -183,76 +436,473 @@ public class CMSPageService {
         if (page == null) {
             return Optional.empty();
         }
-        List<CMSPageVersion> versions = getVersionEntities(em, pageId);
-        if (!permissionService.canReadPage(page, versions)) {
+        ensureHeads(em, page);
+        if (!permissionService.canReadPage(page)) {
             return Optional.empty();
         }
-        return versions.stream()
-            .filter(v -> permissionService.canReadVersion(page, v))
+        TypedQuery<Object[]> query = em.createQuery(
+            "SELECT v.versionNumber, v.status FROM CMSPageVersion v WHERE v.page.id = :pageId"
+                + " ORDER BY v.versionNumber DESC",
+            Object[].class);
+        query.setParameter(PARAM_PAGE_ID, pageId);
+        return query.getResultStream()
+            .filter(row -> permissionService.canReadVersion(page.getPermissionId(), (CMSPageStatus) row[1]))
             .findFirst()
-            .map(this::toVersionDetailDTO);
+            .flatMap(row -> getVersionEntry(pageId, (Integer) row[0]))
+            .map(CMSVersionCache.Entry::version);
     }
 
     /**
      * Get the highest published version of a page.
+     * The result is served from the {@link CMSPublishedContentCache} if possible; the page visibility is checked
+     * for every request.
      */
     public Optional<CMSVersionDetailDTO> getPublishedVersion(Long pageId) {
+        Optional<CMSPublishedContentCache.Entry<CMSVersionDetailDTO>> cached
+            = publishedContentCache.getVersion(pageId);
+        if (cached.isPresent()) {
+            CMSPublishedContentCache.Entry<CMSVersionDetailDTO> entry = cached.get();
+            return permissionService.canReadPage(entry.permissionId(), entry.lastNonDraftStatus())
+                ? Optional.ofNullable(entry.value())
+                : Optional.empty();
+        }
+        long generation = publishedContentCache.getGeneration();
         EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
         CMSPage page = em.find(CMSPage.class, pageId);
         if (page == null) {
             return Optional.empty();
         }
-        List<CMSPageVersion> versions = getVersionEntities(em, pageId);
-        if (!permissionService.canReadPage(page, versions)) {
+        ensureHeads(em, page);
+        Optional<CMSVersionDetailDTO> published = Optional.ofNullable(page.getLatestPublishedVersionId())
+            .map(versionId -> em.find(CMSPageVersion.class, versionId,
+                Map.of(HINT_FETCH_GRAPH, em.getEntityGraph(CMSPageVersion.GRAPH_TRANSLATIONS))))
+            .map(this::toVersionDetailDTO);
+        published.ifPresent(dto -> publishedContentCache.putVersion(generation, pageId, page.getSlug(),
+            page.getLatestNonDraftStatus(), dto));
+        if (!permissionService.canReadPage(page)) {
             return Optional.empty();
         }
-        return versions.stream()
-            .filter(v -> v.getStatus() == CMSPageStatus.PUBLISHED)
-            .findFirst()
-            .map(this::toVersionDetailDTO);
+        return published;
     }
 
     /**
      * Get a specific version of a page.
+     * Versions and page visibility are served from the {@link CMSVersionCache} if possible; permissions are checked
+     * for every request.
      */
     public Optional<CMSVersionDetailDTO> getVersion(Long pageId, Integer versionNumber) {
-        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-        CMSPage page = em.find(CMSPage.class, pageId);
-        if (page == null) {
+        Optional<CMSVersionCache.PageState> pageState = getPageState(pageId);
+        if (pageState.isEmpty()) {
             return Optional.empty();
         }
-        List<CMSPageVersion> versions = getVersionEntities(em, pageId);
-        if (!permissionService.canReadPage(page, versions)) {
+        String permissionId = pageState.get().permissionId();
+        if (!permissionService.canReadPage(permissionId, pageState.get().lastNonDraftStatus())) {
             return Optional.empty();
         }
-        return versions.stream()
-            .filter(v -> v.getVersionNumber().equals(versionNumber))
-            .filter(v -> permissionService.canReadVersion(page, v))
-            .findFirst()
-            .map(this::toVersionDetailDTO);
+        return getVersionEntry(pageId, versionNumber)
+            .filter(entry -> permissionService.canReadVersion(permissionId, entry.status()))
+            .map(CMSVersionCache.Entry::version);
+    }
+
+    /**
+     * Get the differences between two versions of a page, per language.
+     * Both versions are served from the {@link CMSVersionCache} if possible and the diff from the
+     * {@link CMSVersionDiffCache}; permissions are checked for every request.
+     *
+     * @return the diff, or empty if the page or one of the versions does not exist or is not readable
+     */
+    public Optional<CMSVersionDiffDTO> getVersionDiff(Long pageId, Integer fromVersionNumber,
+        Integer toVersionNumber) {
+        Optional<CMSVersionCache.PageState> pageState = getPageState(pageId);
+        if (pageState.isEmpty()) {
+            return Optional.empty();
+        }
+        String permissionId = pageState.get().permissionId();
+        if (!permissionService.canReadPage(permissionId, pageState.get().lastNonDraftStatus())) {
+            return Optional.empty();
+        }
+        Optional<CMSVersionCache.Entry> from = getVersionEntry(pageId, fromVersionNumber)
+            .filter(entry -> permissionService.canReadVersion(permissionId, entry.status()));
+        Optional<CMSVersionCache.Entry> to = getVersionEntry(pageId, toVersionNumber)
+            .filter(entry -> permissionService.canReadVersion(permissionId, entry.status()));
+        if (from.isEmpty() || to.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(versionDiffCache.get(from.get().versionId(), to.get().versionId(),
+            () -> createVersionDiff(from.get().version(), to.get().version())));
+    }
+
+    /**
+     * Get the cache validator of the diff between two versions, derived from the validators of both versions.
+     *
+     * @return the validator, or empty if one of the versions does not exist
+     */
+    public Optional<CMSCacheValidator> getVersionDiffValidator(Long pageId, Integer fromVersionNumber,
+        Integer toVersionNumber) {
+        return getVersionValidator(pageId, fromVersionNumber)
+            .flatMap(from -> getVersionValidator(pageId, toVersionNumber)
+                .map(to -> new CMSCacheValidator("diff:" + from.key() + ":" + to.key(),
+                    from.lastModified() == null || to.lastModified() != null
+                        && to.lastModified().isAfter(from.lastModified()) ? to.lastModified() : from.lastModified())));
     }
 
     /**
      * Get a specific translation of a version.
+     * Served from the {@link CMSVersionCache} if the version is cached, otherwise only the single translation row
+     * is fetched together with the version status needed for the permission check.
      */
     public Optional<CMSTranslationDetailDTO> getTranslation(Long pageId, Integer versionNumber, String languageCode) {
-        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-        CMSPage page = em.find(CMSPage.class, pageId);
-        if (page == null) {
+        Optional<CMSVersionCache.PageState> pageState = getPageState(pageId);
+        if (pageState.isEmpty()) {
             return Optional.empty();
         }
-        List<CMSPageVersion> versions = getVersionEntities(em, pageId);
-        if (!permissionService.canReadPage(page, versions)) {
+        String permissionId = pageState.get().permissionId();
+        if (!permissionService.canReadPage(permissionId, pageState.get().lastNonDraftStatus())) {
             return Optional.empty();
         }
-        return versions.stream()
-            .filter(v -> v.getVersionNumber().equals(versionNumber))
-            .filter(v -> permissionService.canReadVersion(page, v))
-            .findFirst()
-            .flatMap(version -> version.getTranslations().stream()
-                .filter(t -> t.getLanguage().getCode().equals(languageCode))
+        Optional<CMSVersionCache.Entry> cached = versionCache.getVersion(pageId, versionNumber);
+        if (cached.isPresent()) {
+            CMSVersionCache.Entry entry = cached.get();
+            if (!permissionService.canReadVersion(permissionId, entry.status())) {
+                return Optional.empty();
+            }
+            return entry.version().getTranslations().stream()
+                .filter(t -> t.getLanguage().equals(languageCode))
                 .findFirst()
-                .map(t -> toTranslationDetailDTO(version, t)));
+                .map(t -> createTranslationDetailDTO(versionNumber, entry.status(), languageCode, t.getTitle(),
+                    t.getContent()));
+        }
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        TypedQuery<Object[]> query = em.createQuery(
+            "SELECT v.status, t.title, c FROM CMSPageVersionTranslation t"
+                + " JOIN t.pageVersion v JOIN t.language l JOIN t.content c"
+                + " WHERE v.page.id = :pageId AND v.versionNumber = :versionNumber AND l.code = :lang",
+            Object[].class);
+        query.setParameter(PARAM_PAGE_ID, pageId);
+        query.setParameter(PARAM_VERSION_NUMBER, versionNumber);
+        query.setParameter(PARAM_LANG, languageCode);
+        return query.setMaxResults(1).getResultStream().findFirst()
+            .filter(row -> permissionService.canReadVersion(permissionId, (CMSPageStatus) row[0]))
+            .map(row -> createTranslationDetailDTO(versionNumber, (CMSPageStatus) row[0], languageCode,
+                (String) row[1], contentStore.getText((CMSTranslationContent) row[2])));
+    }
+
+    /**
+     * Get the translation of the highest published version of the page with the given slug.
+     * Resolves slug, published version and translation with a single query joining the head columns of the page,
+     * which also provide the status needed to check the page visibility. Head columns of a page created before they
+     * were introduced are initialized on a miss.
+     */
+    public Optional<CMSTranslationDetailDTO> getPublishedTranslationBySlug(String slug, String languageCode) {
+        Optional<CMSPublishedContentCache.Entry<CMSTranslationDetailDTO>> cached
+            = publishedContentCache.getTranslation(slug, languageCode);
+        if (cached.isPresent()) {
+            CMSPublishedContentCache.Entry<CMSTranslationDetailDTO> entry = cached.get();
+            return permissionService.canReadPage(entry.permissionId(), entry.lastNonDraftStatus())
+                ? Optional.of(entry.value())
+                : Optional.empty();
+        }
+        long generation = publishedContentCache.getGeneration();
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        List<Object[]> rows = findPublishedTranslationBySlug(em, slug, languageCode);
+        if (rows.isEmpty() && initializeHeadsBySlug(em, slug)) {
+            rows = findPublishedTranslationBySlug(em, slug, languageCode);
+        }
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.getFirst();
+        CMSPageStatus lastNonDraftStatus = (CMSPageStatus) row[3];
+        CMSTranslationDetailDTO dto = createTranslationDetailDTO((Integer) row[0], CMSPageStatus.PUBLISHED,
+            languageCode, (String) row[1], contentStore.getText((CMSTranslationContent) row[2]));
+        publishedContentCache.putTranslation(generation, slug, lastNonDraftStatus, dto);
+        if (!permissionService.canReadPage(CMS_PAGE_PERMISSION_PREFIX + slug, lastNonDraftStatus)) {
+            return Optional.empty();
+        }
+        return Optional.of(dto);
+    }
+
+    private List<Object[]> findPublishedTranslationBySlug(EntityManager em, String slug, String languageCode) {
+        return em.createQuery("SELECT v.versionNumber, t.title, c, p.latestNonDraftStatus FROM CMSPage p"
+            + " JOIN CMSPageVersion v ON v.id = p.latestPublishedVersionId JOIN v.translations t"
+            + " JOIN t.language l JOIN t.content c WHERE p.slug = :slug AND l.code = :lang", Object[].class)
+            .setParameter(PARAM_SLUG, slug)
+            .setParameter(PARAM_LANG, languageCode)
+            .setMaxResults(1)
+            .getResultList();
+    }
+
+    /**
+     * Initializes the head columns of the page with the given slug if it was created before they were introduced.
+     *
+     * @return true if head columns were initialized
+     */
+    private boolean initializeHeadsBySlug(EntityManager em, String slug) {
+        List<CMSPage> pages = em.createQuery(
+            "SELECT p FROM CMSPage p WHERE p.slug = :slug AND p.latestVersionNumber IS NULL", CMSPage.class)
+            .setParameter(PARAM_SLUG, slug)
+            .getResultList();
+        pages.forEach(page -> ensureHeads(em, page));
+        return !pages.isEmpty();
+    }
+
+    /**
+     * Search the translations of the highest published versions in one language with the {@link CMSSearchIndex},
+     * building the index first if necessary. All terms of the query must match. Pages the current user cannot read
+     * are filtered out before counting and paginating.
+     *
+     * @param offset the number of matches to skip
+     * @param limit  the maximum number of hits to return
+     */
+    public CMSSearchResultDTO search(String query, String languageCode, int offset, int limit) {
+        searchIndex.ensureBuilt(this::loadSearchDocuments, this::loadSearchDocumentsInSession);
+        List<CMSSearchIndex.Match> matches = searchIndex.search(languageCode, query).stream()
+            .filter(match -> permissionService.canReadPage(CMS_PAGE_PERMISSION_PREFIX + match.document().slug(),
+                match.document().lastNonDraftStatus()))
+            .toList();
+        List<CMSSearchHitDTO> hits = matches.stream()
+            .skip(offset)
+            .limit(limit)
+            .map(match -> toSearchHitDTO(match, query))
+            .toList();
+        return new CMSSearchResultDTO(matches.size(), offset, limit, hits);
+    }
+
+    private CMSSearchHitDTO toSearchHitDTO(CMSSearchIndex.Match match, String query) {
+        CMSSearchIndex.Document document = match.document();
+        return new CMSSearchHitDTO(document.pageId(), document.slug(), document.language(),
+            document.versionNumber(), document.title(), CMSSearchIndex.createSnippet(document.text(), query),
+            match.score());
+    }
+
+    /**
+     * Get the tree of pages below a slug, formed by the segments of the slugs, e.g. <code>/about/team</code> is a
+     * child of <code>/about</code>. The slugs are served from the {@link CMSSlugTree}, visibility and titles are
+     * loaded for the pages of the subtree only. Pages the current user cannot read are shown as intermediate nodes
+     * without page ID and title,
+     * branches without any visible page within the depth are left out.
+     *
+     * @param slug         the slug of the root node, <code>/</code> for the whole tree
+     * @param depth        the number of levels of children to include
+     * @param languageCode the language of the titles, which are taken from the highest published version
+     * @return the tree, or empty if there is no visible page at or below the slug
+     */
+    public Optional<CMSPageTreeNodeDTO> getPageTree(String slug, int depth, String languageCode) {
+        slugTree.ensureBuilt(this::loadSlugs);
+        Optional<CMSSlugTree.SlugNode> subtree = slugTree.getSubtree(slug, depth);
+        if (subtree.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Long> pageIds = new ArrayList<>();
+        collectPageIds(subtree.get(), pageIds);
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        Set<Long> visiblePageIds = new HashSet<>();
+        Map<Long, Long> pageIdsByPublishedVersionId = new HashMap<>();
+        for (int start = 0; start < pageIds.size(); start += IN_BATCH_SIZE) {
+            List<Long> batch = pageIds.subList(start, Math.min(start + IN_BATCH_SIZE, pageIds.size()));
+            List<Object[]> rows = em.createQuery("SELECT p.id, p.slug, p.latestNonDraftStatus,"
+                + " p.latestPublishedVersionId FROM CMSPage p WHERE p.id IN :pageIds", Object[].class)
+                .setParameter("pageIds", batch)
+                .getResultList();
+            for (Object[] row : rows) {
+                if (permissionService.canReadPage(CMS_PAGE_PERMISSION_PREFIX + row[1], (CMSPageStatus) row[2])) {
+                    visiblePageIds.add((Long) row[0]);
+                    if (row[3] != null) {
+                        pageIdsByPublishedVersionId.put((Long) row[3], (Long) row[0]);
+                    }
+                }
+            }
+        }
+        Map<Long, String> titles = new HashMap<>();
+        List<Long> versionIds = new ArrayList<>(pageIdsByPublishedVersionId.keySet());
+        for (int start = 0; languageCode != null && start < versionIds.size(); start += IN_BATCH_SIZE) {
+            List<Long> batch = versionIds.subList(start, Math.min(start + IN_BATCH_SIZE, versionIds.size()));
+            em.createQuery("SELECT t.pageVersion.id, t.title FROM CMSPageVersionTranslation t JOIN t.language l"
+                + " WHERE t.pageVersion.id IN :versionIds AND l.code = :lang", Object[].class)
+                .setParameter("versionIds", batch)
+                .setParameter(PARAM_LANG, languageCode)
+                .getResultList()
+                .forEach(row -> titles.put(pageIdsByPublishedVersionId.get((Long) row[0]), (String) row[1]));
+        }
+        return toPageTreeNodeDTO(subtree.get(), visiblePageIds, titles);
+    }
+
+    private static void collectPageIds(CMSSlugTree.SlugNode node, List<Long> pageIds) {
+        if (node.pageId() != null) {
+            pageIds.add(node.pageId());
+        }
+        node.children().forEach(child -> collectPageIds(child, pageIds));
+    }
+
+    private static Optional<CMSPageTreeNodeDTO> toPageTreeNodeDTO(CMSSlugTree.SlugNode node, Set<Long> visiblePageIds,
+        Map<Long, String> titles) {
+        List<CMSPageTreeNodeDTO> children = node.children().stream()
+            .map(child -> toPageTreeNodeDTO(child, visiblePageIds, titles))
+            .flatMap(Optional::stream)
+            .toList();
+        boolean visible = visiblePageIds.contains(node.pageId());
+        if (!visible && children.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new CMSPageTreeNodeDTO(node.slug(), visible ? node.pageId() : null,
+            visible ? titles.get(node.pageId()) : null, children));
+    }
+
+    private Map<String, Long> loadSlugs() {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        Map<String, Long> slugs = new HashMap<>();
+        em.createQuery("SELECT p.slug, p.id FROM CMSPage p", Object[].class)
+            .getResultList()
+            .forEach(row -> slugs.put((String) row[0], (Long) row[1]));
+        return slugs;
+    }
+
+    /**
+     * Split the sitemap entries into parts of at most the given number of entries, each covering a range of page
+     * IDs. There is one entry per translation of the highest published version of every page that is not archived,
+     * the entries of a page are never split. Visibility is not checked, so the parts may list fewer entries.
+     * <p>
+     * The parts are computed from the number of entries per page and kept for the given validator of the page list,
+     * so they are only computed again after a page was changed.
+     *
+     * @param pagesValidator the current validator of the page list, see {@link #getPagesValidator()}
+     * @return the parts ordered by page ID, the last one open-ended
+     */
+    public List<SitemapPart> getSitemapParts(CMSCacheValidator pagesValidator, int maxEntries) {
+        SitemapParts cached = SITEMAP_PARTS.get();
+        if (cached != null && cached.validatorKey().equals(pagesValidator.key())
+            && cached.maxEntries() == maxEntries) {
+            return cached.parts();
+        }
+        List<SitemapPart> parts = computeSitemapParts(maxEntries);
+        SITEMAP_PARTS.set(new SitemapParts(pagesValidator.key(), maxEntries, parts));
+        return parts;
+    }
+
+    private List<SitemapPart> computeSitemapParts(int maxEntries) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        TypedQuery<Object[]> query = em.createQuery("SELECT p.id, COUNT(t)" + SITEMAP_FROM
+            + " GROUP BY p.id ORDER BY p.id", Object[].class)
+            .setParameter("published", CMSPageStatus.PUBLISHED)
+            .setHint(HINT_FETCH_SIZE, SITEMAP_FETCH_SIZE)
+            .setHint(HINT_READ_ONLY, true);
+        List<SitemapPart> parts = new ArrayList<>();
+        long partAfter = 0;
+        long entries = 0;
+        long lastPageId = 0;
+        try (Stream<Object[]> rows = query.getResultStream()) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                long count = (Long) row[1];
+                if (entries > 0 && entries + count > maxEntries) {
+                    parts.add(new SitemapPart(partAfter, lastPageId));
+                    partAfter = lastPageId;
+                    entries = 0;
+                }
+                entries += count;
+                lastPageId = (Long) row[0];
+            }
+        }
+        parts.add(new SitemapPart(partAfter, Long.MAX_VALUE));
+        return List.copyOf(parts);
+    }
+
+    /**
+     * Pass the sitemap entries of the pages in a range of page IDs, ordered by page ID and language, to a consumer
+     * while they are read. The rows are scrolled with a database cursor and never collected in memory, the range is
+     * found through the primary key, so later parts are not slower than the first. The last modification time is the
+     * creation time of the published version, found through the head columns of the page. Pages the current user
+     * cannot read are skipped.
+     *
+     * @param afterPageId the page ID after which to start, exclusive
+     * @param untilPageId the page ID at which to stop, inclusive
+     */
+    public void forEachSitemapEntry(long afterPageId, long untilPageId, Consumer<SitemapEntry> consumer) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        TypedQuery<Object[]> query = em.createQuery("SELECT p.slug, l.code, v.createdAt" + SITEMAP_FROM
+            + " AND p.id > :afterPageId AND p.id <= :untilPageId ORDER BY p.id, l.code", Object[].class)
+            .setParameter("published", CMSPageStatus.PUBLISHED)
+            .setParameter("afterPageId", afterPageId)
+            .setParameter("untilPageId", untilPageId)
+            .setHint(HINT_FETCH_SIZE, SITEMAP_FETCH_SIZE)
+            .setHint(HINT_READ_ONLY, true);
+        String lastSlug = null;
+        boolean lastVisible = false;
+        try (Stream<Object[]> rows = query.getResultStream()) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                String slug = (String) row[0];
+                if (!slug.equals(lastSlug)) {
+                    lastSlug = slug;
+                    lastVisible = permissionService.canReadPage(CMS_PAGE_PERMISSION_PREFIX + slug,
+                        CMSPageStatus.PUBLISHED);
+                }
+                if (lastVisible) {
+                    consumer.accept(new SitemapEntry(slug, (String) row[1], (Instant) row[2]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the {@link CMSSearchIndex} of this process from the database.
+     *
+     * @return the number of indexed translations
+     */
+    public int rebuildSearchIndex() {
+        searchIndex.rebuild(this::loadSearchDocuments);
+        return searchIndex.size();
+    }
+
+    /**
+     * Loads the search documents in a background thread, in a session and transaction of its own.
+     */
+    private List<CMSSearchIndex.Document> loadSearchDocumentsInSession() {
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        try {
+            MCRTransactionHelper.beginTransaction();
+            try {
+                List<CMSSearchIndex.Document> documents = loadSearchDocuments();
+                MCRTransactionHelper.commitTransaction();
+                return documents;
+            } catch (RuntimeException e) {
+                MCRTransactionHelper.rollbackTransaction();
+                throw e;
+            }
+        } finally {
+            MCRSessionMgr.releaseCurrentSession();
+            session.close();
+        }
+    }
+
+    /**
+     * Loads the translations of the highest published version of all pages. Pages without initialized head columns
+     * are skipped, see {@link #initializePageHeads()}. The persistence context is cleared after every batch, so this
+     * must not be called in a transaction holding modified entities.
+     */
+    private List<CMSSearchIndex.Document> loadSearchDocuments() {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        Map<Long, Object[]> pagesByVersionId = new HashMap<>();
+        em.createQuery("SELECT p.latestPublishedVersionId, p.id, p.slug, p.latestNonDraftStatus FROM CMSPage p"
+            + " WHERE p.latestPublishedVersionId IS NOT NULL", Object[].class)
+            .getResultList()
+            .forEach(row -> pagesByVersionId.put((Long) row[0], row));
+        List<Long> versionIds = new ArrayList<>(pagesByVersionId.keySet());
+        List<CMSSearchIndex.Document> documents = new ArrayList<>();
+        for (int start = 0; start < versionIds.size(); start += IN_BATCH_SIZE) {
+            List<Long> batch = versionIds.subList(start, Math.min(start + IN_BATCH_SIZE, versionIds.size()));
+            List<Object[]> rows = em.createQuery("SELECT v.id, v.versionNumber, l.code, t.title, c"
+                + " FROM CMSPageVersionTranslation t JOIN t.pageVersion v JOIN t.language l JOIN t.content c"
+                + " WHERE v.id IN :versionIds", Object[].class)
+                .setParameter("versionIds", batch)
+                .getResultList();
+            for (Object[] row : rows) {
+                Object[] page = pagesByVersionId.get((Long) row[0]);
+                documents.add(new CMSSearchIndex.Document((Long) page[1], (String) page[2], (String) row[2],
+                    (Integer) row[1], (CMSPageStatus) page[3], (String) row[3],
+                    CMSSearchIndex.toPlainText(contentStore.getText((CMSTranslationContent) row[4]))));
+            }
+            em.clear();
+        }
+        return documents;
     }
 
     /**
@@ -266,24 +916,24 @@ public class CMSPageService {
         }
 
         String userId = MCRSessionMgr.getCurrentSession().getUserInformation().getUserID();
-        int nextVersionNumber = getNextVersionNumber(page);
+        ensureHeads(em, page);
+        int nextVersionNumber = allocateVersionNumber(em, page);
         CMSPageStatus status = CMSPageStatus.fromValue(dto.getStatus());
 
         CMSPageVersion version = new CMSPageVersion(page, nextVersionNumber, userId, status);
         version.setComment(dto.getComment());
 
-        if (dto.getTranslations() != null) {
-            for (CMSTranslationDTO translationDTO : dto.getTranslations()) {
-                CMSLanguage language = getOrCreateLanguage(em, translationDTO.getLanguage());
-                CMSPageVersionTranslation translation = new CMSPageVersionTranslation(
-                    version, language, translationDTO.getTitle(), translationDTO.getContent());
-                version.addTranslation(translation);
-            }
+        enableBatching(em);
+        addVersion(em, page, version);
+        List<CMSPageVersionTranslation> translations = addTranslations(em, version, dto.getTranslations());
+        // created before contents are replaced by shared ones, which would be loaded from the database
+        CMSVersionDetailDTO result = toVersionDetailDTO(version);
+        if (status != CMSPageStatus.DRAFT) {
+            updateSearchIndex(em, page);
         }
-
-        page.addVersion(version);
-        em.persist(version);
-        return Optional.of(toVersionDetailDTO(version));
+        persistTranslations(em, translations, findPreviousContents(em, version, translations));
+        invalidatePageCaches(page.getId(), page.getSlug());
+        return Optional.of(result);
     }
 
     /**
@@ -293,55 +943,268 @@ public class CMSPageService {
         TypedQuery<CMSPageVersion> query = em.createQuery(
             "SELECT v FROM CMSPageVersion v WHERE v.page.id = :pageId ORDER BY v.versionNumber DESC",
             CMSPageVersion.class);
-        query.setParameter("pageId", pageId);
+        query.setParameter(PARAM_PAGE_ID, pageId);
         return query.getResultList();
     }
 
-    private int getNextVersionNumber(CMSPage page) {
-        // Query versions directly to avoid lazy loading issues with cached entities
+    /**
+     * Returns the visibility data of a page from the version cache, loading it on a cache miss.
+     *
+     * @return the visibility data, or empty if the page does not exist
+     */
+    private Optional<CMSVersionCache.PageState> getPageState(Long pageId) {
+        Optional<CMSVersionCache.PageState> cached = versionCache.getPageState(pageId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long generation = versionCache.getGeneration();
         EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-        TypedQuery<Integer> query = em.createQuery(
-            "SELECT MAX(v.versionNumber) FROM CMSPageVersion v WHERE v.page.id = :pageId",
-            Integer.class);
-        query.setParameter("pageId", page.getId());
-        Integer maxVersion = query.getSingleResult();
-        return (maxVersion != null ? maxVersion : 0) + 1;
+        CMSPage page = em.find(CMSPage.class, pageId);
+        if (page == null) {
+            return Optional.empty();
+        }
+        ensureHeads(em, page);
+        CMSVersionCache.PageState state = new CMSVersionCache.PageState(page.getPermissionId(),
+            page.getLatestNonDraftStatus());
+        versionCache.putPageState(generation, pageId, state);
+        return Optional.of(state);
     }
 
-    private CMSLanguage getOrCreateLanguage(EntityManager em, String code) {
-        TypedQuery<CMSLanguage> query = em.createQuery(
-            "SELECT l FROM CMSLanguage l WHERE l.code = :code", CMSLanguage.class);
-        query.setParameter("code", code);
-        try {
-            return query.getSingleResult();
-        } catch (NoResultException e) {
-            CMSLanguage language = new CMSLanguage(code, code);
-            em.persist(language);
-            return language;
+    /**
+     * Returns a version from the version cache, loading it on a cache miss.
+     */
+    private Optional<CMSVersionCache.Entry> getVersionEntry(Long pageId, Integer versionNumber) {
+        Optional<CMSVersionCache.Entry> cached = versionCache.getVersion(pageId, versionNumber);
+        if (cached.isPresent()) {
+            return cached;
         }
+        long generation = versionCache.getGeneration();
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        TypedQuery<CMSPageVersion> query = em.createQuery(
+            "SELECT v FROM CMSPageVersion v WHERE v.page.id = :pageId AND v.versionNumber = :versionNumber",
+            CMSPageVersion.class);
+        query.setParameter(PARAM_PAGE_ID, pageId);
+        query.setParameter(PARAM_VERSION_NUMBER, versionNumber);
+        query.setHint(HINT_FETCH_GRAPH, em.getEntityGraph(CMSPageVersion.GRAPH_TRANSLATIONS));
+        return query.getResultList().stream().findFirst()
+            .map(v -> versionCache.putVersion(generation, v.getId(), pageId, v.getStatus(), toVersionDetailDTO(v)));
     }
 
-    private CMSPageListDTO toPageListDTO(CMSPage page) {
+    /**
+     * Initializes the head columns of a page created before they were introduced, from a projection of its
+     * versions. Pages with initialized head columns are left untouched.
+     */
+    private void ensureHeads(EntityManager em, CMSPage page) {
+        if (page.getLatestVersionNumber() != null) {
+            return;
+        }
+        TypedQuery<Object[]> query = em.createQuery(
+            "SELECT v.id, v.versionNumber, v.status FROM CMSPageVersion v WHERE v.page.id = :pageId"
+                + " ORDER BY v.versionNumber DESC",
+            Object[].class);
+        query.setParameter(PARAM_PAGE_ID, page.getId());
+        int latestVersionNumber = 0;
+        CMSPageStatus latestNonDraftStatus = null;
+        Long latestPublishedVersionId = null;
+        for (Object[] row : query.getResultList()) {
+            CMSPageStatus status = (CMSPageStatus) row[2];
+            latestVersionNumber = Math.max(latestVersionNumber, (Integer) row[1]);
+            if (latestNonDraftStatus == null && status != CMSPageStatus.DRAFT) {
+                latestNonDraftStatus = status;
+            }
+            if (latestPublishedVersionId == null && status == CMSPageStatus.PUBLISHED) {
+                latestPublishedVersionId = (Long) row[0];
+            }
+        }
+        page.setLatestVersionNumber(latestVersionNumber);
+        page.setLatestNonDraftStatus(latestNonDraftStatus);
+        page.setLatestPublishedVersionId(latestPublishedVersionId);
+    }
+
+    /**
+     * Initializes the head columns of all pages created before they were introduced.
+     *
+     * @return the number of updated pages
+     */
+    public int initializePageHeads() {
         EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-        CMSPageListDTO dto = new CMSPageListDTO();
-        dto.setId(page.getId());
-        dto.setSlug(page.getSlug());
-        dto.setCreatedAt(page.getCreatedAt());
-        dto.setUpdatedAt(page.getUpdatedAt());
+        List<CMSPage> pages = em.createQuery(
+            "SELECT p FROM CMSPage p WHERE p.latestVersionNumber IS NULL", CMSPage.class).getResultList();
+        pages.forEach(page -> ensureHeads(em, page));
+        return pages.size();
+    }
 
-        List<CMSPageVersion> versions = getVersionEntities(em, page.getId());
-        versions.stream()
-            .filter(v -> permissionService.canReadVersion(page, v))
-            .findFirst()
-            .ifPresent(currentVersion -> {
-                CMSVersionSummaryDTO versionSummary = new CMSVersionSummaryDTO(
-                    currentVersion.getVersionNumber(),
-                    currentVersion.getStatus().getValue(),
-                    currentVersion.getCreatedAt());
-                dto.setCurrentVersion(versionSummary);
-            });
+    /**
+     * Adds and persists a version and maintains the head columns of the page.
+     */
+    private void addVersion(EntityManager em, CMSPage page, CMSPageVersion version) {
+        page.addVersion(version);
+        em.persist(version);
+        if (version.getStatus() == CMSPageStatus.PUBLISHED
+            && version.getVersionNumber().equals(page.getLatestVersionNumber())) {
+            page.setLatestPublishedVersionId(version.getId());
+        }
+    }
 
-        return dto;
+    /**
+     * Removes the cached published content and visibility of a page now and again after the current transaction is
+     * committed, so concurrent readers cannot re-cache the data that is being replaced.
+     */
+    private void invalidatePageCaches(Long pageId, String slug) {
+        invalidateCachedPage(pageId, slug);
+        MCRSessionMgr.getCurrentSession().onCommit(() -> invalidateCachedPage(pageId, slug));
+    }
+
+    /**
+     * Replaces the documents of a page in the {@link CMSSearchIndex} after the current transaction is committed.
+     * Must be called after the head columns of the page are updated.
+     */
+    private void updateSearchIndex(EntityManager em, CMSPage page) {
+        if (!searchIndex.isActive()) {
+            return;
+        }
+        Long pageId = page.getId();
+        List<CMSSearchIndex.Document> documents = Optional.ofNullable(page.getLatestPublishedVersionId())
+            .map(versionId -> em.find(CMSPageVersion.class, versionId))
+            .map(version -> version.getTranslations().stream()
+                .map(t -> new CMSSearchIndex.Document(pageId, page.getSlug(), t.getLanguage().getCode(),
+                    version.getVersionNumber(), page.getLatestNonDraftStatus(), t.getTitle(),
+                    CMSSearchIndex.toPlainText(getText(t))))
+                .toList())
+            .orElse(List.of());
+        MCRSessionMgr.getCurrentSession().onCommit(() -> searchIndex.updatePage(pageId, documents));
+    }
+
+    private void removeFromSearchIndex(Long pageId) {
+        MCRSessionMgr.getCurrentSession().onCommit(() -> searchIndex.removePage(pageId));
+    }
+
+    /**
+     * Adds a page to the {@link CMSSlugTree} after the current transaction is committed.
+     */
+    private void addToSlugTree(CMSPage page) {
+        Long pageId = page.getId();
+        String slug = page.getSlug();
+        MCRSessionMgr.getCurrentSession().onCommit(() -> slugTree.put(slug, pageId));
+    }
+
+    private void removeFromSlugTree(String slug) {
+        MCRSessionMgr.getCurrentSession().onCommit(() -> slugTree.remove(slug));
+    }
+
+    private void invalidateCachedPage(Long pageId, String slug) {
+        publishedContentCache.invalidatePage(pageId, slug);
+        if (pageId != null) {
+            versionCache.invalidatePage(pageId);
+        }
+    }
+
+    /**
+     * Allocates the next version number of a page by advancing its version counter with a conditional update on
+     * the current value. If a concurrent transaction advanced the counter first, the page is refreshed and the update
+     * retried. The successful update locks the page row until the end of the transaction, so a number is never
+     * allocated twice.
+     */
+    private int allocateVersionNumber(EntityManager em, CMSPage page) {
+        for (int attempt = 1;; attempt++) {
+            // writes initialized head columns of legacy pages before comparing against them
+            em.flush();
+            int current = page.getLatestVersionNumber();
+            int updated = em.createQuery("UPDATE CMSPage p SET p.latestVersionNumber = :next"
+                + " WHERE p.id = :pageId AND p.latestVersionNumber = :current")
+                .setParameter("next", current + 1)
+                .setParameter(PARAM_PAGE_ID, page.getId())
+                .setParameter("current", current)
+                .executeUpdate();
+            if (updated == 1) {
+                return current + 1;
+            }
+            if (attempt == MAX_ALLOCATION_ATTEMPTS) {
+                throw new OptimisticLockException("Could not allocate a version number for page " + page.getId()
+                    + " after " + attempt + " attempts");
+            }
+            LOGGER.debug("Version counter of page {} was advanced concurrently, retrying", page::getId);
+            em.refresh(page);
+            ensureHeads(em, page);
+        }
+    }
+
+    private TypedQuery<Object[]> createKeysetQuery(EntityManager em, CMSPageQuery pageQuery,
+        CMSPageQuery.Cursor cursor) {
+        boolean bySlug = pageQuery.getSort() == CMSPageQuery.Sort.SLUG;
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (pageQuery.getSlugPrefix() != null) {
+            conditions.add("p.slug LIKE :prefix ESCAPE '!'");
+            parameters.put("prefix", escapeLike(pageQuery.getSlugPrefix()) + "%");
+        }
+        if (pageQuery.getUpdatedSince() != null) {
+            conditions.add("p.updatedAt >= :since");
+            parameters.put("since", pageQuery.getUpdatedSince());
+        }
+        if (cursor != null) {
+            conditions.add(bySlug ? "(p.slug > :cursorValue OR (p.slug = :cursorValue AND p.id > :cursorId))"
+                : "(p.updatedAt < :cursorValue OR (p.updatedAt = :cursorValue AND p.id < :cursorId))");
+            parameters.put("cursorValue", bySlug ? cursor.slug() : cursor.updatedAt());
+            parameters.put("cursorId", cursor.id());
+        }
+        String jpql = PAGE_PROJECTION_QUERY
+            + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+            + (bySlug ? " ORDER BY p.slug ASC, p.id ASC" : " ORDER BY p.updatedAt DESC, p.id DESC");
+        TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    private static boolean matchesStatus(CMSPageListDTO dto, CMSPageStatus status) {
+        return status == null
+            || dto.getCurrentVersion() != null && status.getValue().equals(dto.getCurrentVersion().getStatus());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private List<CMSPageProjection> toPageProjections(List<Object[]> rows) {
+        return rows.stream()
+            .map(row -> new CMSPageProjection((Long) row[0], (String) row[1], (Instant) row[2], (Instant) row[3]))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Loads the newest version of each status for the given pages with a single query.
+     *
+     * @param restrictToPages if true, only heads of the given pages are queried, otherwise heads of all pages
+     */
+    private void loadVersionHeads(EntityManager em, List<CMSPageProjection> projections, boolean restrictToPages) {
+        if (projections.isEmpty()) {
+            return;
+        }
+        Map<Long, CMSPageProjection> byId = projections.stream()
+            .collect(Collectors.toMap(CMSPageProjection::getId, Function.identity()));
+        String jpql = "SELECT v.page.id, v.status, v.versionNumber, v.createdAt FROM CMSPageVersion v"
+            + " WHERE v.versionNumber = (SELECT MAX(v2.versionNumber) FROM CMSPageVersion v2"
+            + " WHERE v2.page = v.page AND v2.status = v.status)"
+            + (restrictToPages ? " AND v.page.id IN :pageIds" : "");
+        TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class);
+        if (restrictToPages) {
+            query.setParameter("pageIds", byId.keySet());
+        }
+        for (Object[] row : query.getResultList()) {
+            CMSPageProjection projection = byId.get((Long) row[0]);
+            if (projection != null) {
+                projection.putHead((CMSPageStatus) row[1], (Integer) row[2], (Instant) row[3]);
+            }
+        }
+    }
+
+    private boolean canReadPage(CMSPageProjection projection) {
+        return permissionService.canReadPage(projection.getPermissionId(), projection.getLastNonDraftStatus());
+    }
+
+    private CMSPageListDTO toPageListDTO(CMSPageProjection projection) {
+        return projection.toPageListDTO(
+            status -> permissionService.canReadVersion(projection.getPermissionId(), status));
     }
 
     private CMSPageDetailDTO toPageDetailDTO(CMSPage page) {
@@ -381,19 +1244,73 @@ public class CMSPageService {
             .map(t -> new CMSTranslationDTO(
                 t.getLanguage().getCode(),
                 t.getTitle(),
-                t.getContent()))
+                getText(t)))
             .collect(Collectors.toList()));
         return dto;
     }
 
-    private CMSTranslationDetailDTO toTranslationDetailDTO(CMSPageVersion version,
-        CMSPageVersionTranslation translation) {
+    /**
+     * Diffs the translations of two versions, in the language order of the new version followed by languages only
+     * the old version has. Contents that differ in more than {@value #PROPERTY_DIFF_MAX_EDITS} tokens are reported
+     * as replaced completely. Operations are collected as the diff emits them, without an intermediate edit list.
+     */
+    private CMSVersionDiffDTO createVersionDiff(CMSVersionDetailDTO from, CMSVersionDetailDTO to) {
+        Map<String, CMSTranslationDTO> fromTranslations = from.getTranslations().stream()
+            .collect(Collectors.toMap(CMSTranslationDTO::getLanguage, Function.identity(), (a, b) -> a,
+                LinkedHashMap::new));
+        Map<String, CMSTranslationDTO> toTranslations = to.getTranslations().stream()
+            .collect(Collectors.toMap(CMSTranslationDTO::getLanguage, Function.identity(), (a, b) -> a,
+                LinkedHashMap::new));
+        Set<String> languages = new LinkedHashSet<>(toTranslations.keySet());
+        languages.addAll(fromTranslations.keySet());
+        List<CMSTranslationDiffDTO> translations = new ArrayList<>(languages.size());
+        for (String language : languages) {
+            Optional<CMSTranslationDTO> fromTranslation = Optional.ofNullable(fromTranslations.get(language));
+            Optional<CMSTranslationDTO> toTranslation = Optional.ofNullable(toTranslations.get(language));
+            String fromContent = fromTranslation.map(CMSTranslationDTO::getContent).orElse("");
+            String toContent = toTranslation.map(CMSTranslationDTO::getContent).orElse("");
+            List<List<String>> operations = new ArrayList<>();
+            if (!CMSTextDiff.diff(fromContent, toContent, diffMaxEdits,
+                edit -> operations.add(List.of(toOperationSymbol(edit.type()), edit.text())))) {
+                if (!fromContent.isEmpty()) {
+                    operations.add(List.of(CMSTranslationDiffDTO.OPERATION_DELETE, fromContent));
+                }
+                if (!toContent.isEmpty()) {
+                    operations.add(List.of(CMSTranslationDiffDTO.OPERATION_INSERT, toContent));
+                }
+            }
+            translations.add(new CMSTranslationDiffDTO(language,
+                fromTranslation.map(CMSTranslationDTO::getTitle).orElse(null),
+                toTranslation.map(CMSTranslationDTO::getTitle).orElse(null),
+                operations));
+        }
+        return new CMSVersionDiffDTO(from.getVersionNumber(), to.getVersionNumber(), translations);
+    }
+
+    /**
+     * Returns the full text of a translation, rebuilt by the {@link CMSContentStore} if it is stored as a delta.
+     */
+    private String getText(CMSPageVersionTranslation translation) {
+        CMSTranslationContent content = translation.getContentEntity();
+        return content == null ? null : contentStore.getText(content);
+    }
+
+    private static String toOperationSymbol(CMSTextDiff.Edit.Type type) {
+        return switch (type) {
+            case EQUAL -> CMSTranslationDiffDTO.OPERATION_EQUAL;
+            case DELETE -> CMSTranslationDiffDTO.OPERATION_DELETE;
+            case INSERT -> CMSTranslationDiffDTO.OPERATION_INSERT;
+        };
+    }
+
+    private static CMSTranslationDetailDTO createTranslationDetailDTO(Integer versionNumber, CMSPageStatus status,
+        String languageCode, String title, String content) {
         CMSTranslationDetailDTO dto = new CMSTranslationDetailDTO();
-        dto.setVersionNumber(version.getVersionNumber());
-        dto.setStatus(version.getStatus().getValue());
-        dto.setLanguage(translation.getLanguage().getCode());
-        dto.setTitle(translation.getTitle());
-        dto.setContent(translation.getContent());
+        dto.setVersionNumber(versionNumber);
+        dto.setStatus(status.getValue());
+        dto.setLanguage(languageCode);
+        dto.setTitle(title);
+        dto.setContent(content);
         return dto;
     }
 
@@ -405,9 +1322,32 @@ public class CMSPageService {
         TypedQuery<CMSPage> query = em.createQuery(
             "SELECT p FROM CMSPage p WHERE p.slug LIKE :prefix ORDER BY p.slug", CMSPage.class);
         query.setParameter("prefix", slugPrefix + "%");
+        List<CMSPage> pages = query.getResultList();
+        List<CMSPageExportDTO> exports = new ArrayList<>(pages.size());
+        for (int start = 0; start < pages.size(); start += EXPORT_BATCH_SIZE) {
+            List<CMSPage> batch = pages.subList(start, Math.min(start + EXPORT_BATCH_SIZE, pages.size()));
+            Map<Long, List<CMSPageVersion>> versionsByPage = getVersionEntitiesWithTranslations(em, batch);
+            for (CMSPage page : batch) {
+                exports.add(toPageExportDTO(page, versionsByPage.getOrDefault(page.getId(), List.of())));
+            }
+        }
+        return exports;
+    }
+
+    /**
+     * Loads the versions of the given pages including translations, languages and contents with one statement.
+     *
+     * @return the versions per page ID, sorted by version number descending
+     */
+    private Map<Long, List<CMSPageVersion>> getVersionEntitiesWithTranslations(EntityManager em,
+        List<CMSPage> pages) {
+        TypedQuery<CMSPageVersion> query = em.createQuery(
+            "SELECT v FROM CMSPageVersion v WHERE v.page IN :pages ORDER BY v.versionNumber DESC",
+            CMSPageVersion.class);
+        query.setParameter("pages", pages);
+        query.setHint(HINT_FETCH_GRAPH, em.getEntityGraph(CMSPageVersion.GRAPH_TRANSLATIONS));
         return query.getResultList().stream()
-            .map(this::toPageExportDTO)
-            .collect(Collectors.toList());
+            .collect(Collectors.groupingBy(v -> v.getPage().getId(), LinkedHashMap::new, Collectors.toList()));
     }
 
     /**
@@ -420,13 +1360,76 @@ public class CMSPageService {
             "SELECT p FROM CMSPage p WHERE p.slug LIKE :prefix", CMSPage.class);
         query.setParameter("prefix", slugPrefix + "%");
         List<CMSPage> pages = query.getResultList();
+        List<Long> contentIds = getContentIds(em, pages.stream().map(CMSPage::getId).toList());
         int count = pages.size();
         for (CMSPage page : pages) {
+            invalidatePageCaches(page.getId(), page.getSlug());
+            removeFromSearchIndex(page.getId());
+            removeFromSlugTree(page.getSlug());
             em.remove(page);
         }
+        removeUnreferencedContents(em, contentIds);
         return count;
     }
 
+    /**
+     * Permanently delete the oldest drafts of a page that are neither among its newest drafts nor newer than the given
+     * time. Published and archived versions are never deleted. Contents only used by the deleted drafts are removed
+     * as well, the update time of the page is advanced so cached version lists are revalidated.
+     *
+     * @param keepLast      the number of newest drafts to keep, at least 1
+     * @param createdBefore only drafts created before this time are deleted
+     * @param maxCount      the maximum number of drafts to delete
+     * @return the number of deleted drafts
+     */
+    public int deleteOldDrafts(Long pageId, int keepLast, Instant createdBefore, int maxCount) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        CMSPage page = em.find(CMSPage.class, pageId);
+        if (page == null) {
+            return 0;
+        }
+        List<Integer> oldestKept = em.createQuery("SELECT v.versionNumber FROM CMSPageVersion v"
+            + " WHERE v.page.id = :pageId AND v.status = :draft ORDER BY v.versionNumber DESC", Integer.class)
+            .setParameter(PARAM_PAGE_ID, pageId)
+            .setParameter(PARAM_DRAFT, CMSPageStatus.DRAFT)
+            .setFirstResult(Math.max(keepLast, 1) - 1)
+            .setMaxResults(1)
+            .getResultList();
+        if (oldestKept.isEmpty()) {
+            return 0;
+        }
+        List<Long> versionIds = em.createQuery("SELECT v.id FROM CMSPageVersion v WHERE v.page.id = :pageId"
+            + " AND v.status = :draft AND v.versionNumber < :versionNumber AND v.createdAt < :createdBefore"
+            + " ORDER BY v.versionNumber", Long.class)
+            .setParameter(PARAM_PAGE_ID, pageId)
+            .setParameter(PARAM_DRAFT, CMSPageStatus.DRAFT)
+            .setParameter(PARAM_VERSION_NUMBER, oldestKept.getFirst())
+            .setParameter("createdBefore", createdBefore)
+            .setMaxResults(maxCount)
+            .getResultList();
+        if (versionIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> contentIds = new ArrayList<>();
+        for (int start = 0; start < versionIds.size(); start += IN_BATCH_SIZE) {
+            List<Long> batch = versionIds.subList(start, Math.min(start + IN_BATCH_SIZE, versionIds.size()));
+            contentIds.addAll(em.createQuery("SELECT DISTINCT t.content.id FROM CMSPageVersionTranslation t"
+                + " WHERE t.pageVersion.id IN :versionIds", Long.class)
+                .setParameter("versionIds", batch)
+                .getResultList());
+            em.createQuery("DELETE FROM CMSPageVersionTranslation t WHERE t.pageVersion.id IN :versionIds")
+                .setParameter("versionIds", batch)
+                .executeUpdate();
+            em.createQuery("DELETE FROM CMSPageVersion v WHERE v.id IN :versionIds")
+                .setParameter("versionIds", batch)
+                .executeUpdate();
+        }
+        page.setUpdatedAt(Instant.now());
+        removeUnreferencedContents(em, contentIds);
+        invalidatePageCaches(page.getId(), page.getSlug());
+        return versionIds.size();
+    }
+
     /**
      * Import a page from an export DTO.
      * Creates a new page with all versions and translations.
@@ -446,6 +1449,9 @@ public class CMSPageService {
         importVersions(em, page, exportDTO.getVersions());
 
         em.flush();
+        invalidatePageCaches(page.getId(), page.getSlug());
+        updateSearchIndex(em, page);
+        addToSlugTree(page);
         return page;
     }
 
@@ -459,13 +1465,17 @@ public class CMSPageService {
         // Check if page with same slug already exists
         TypedQuery<CMSPage> query = em.createQuery(
             "SELECT p FROM CMSPage p WHERE p.slug = :slug", CMSPage.class);
-        query.setParameter("slug", exportDTO.getSlug());
+        query.setParameter(PARAM_SLUG, exportDTO.getSlug());
 
         boolean replaced = false;
+        List<Long> replacedContentIds = List.of();
         CMSPage page;
         try {
             page = query.getSingleResult();
             // Delete existing page completely
+            invalidatePageCaches(page.getId(), page.getSlug());
+            removeFromSearchIndex(page.getId());
+            replacedContentIds = getContentIds(em, List.of(page.getId()));
             em.remove(page);
             em.flush();
             replaced = true;
@@ -485,13 +1495,23 @@ public class CMSPageService {
 
         importVersions(em, page, exportDTO.getVersions());
 
-        em.flush();
+        // after the import, which reuses unchanged contents of the replaced page
+        removeUnreferencedContents(em, replacedContentIds);
+        invalidatePageCaches(page.getId(), page.getSlug());
+        updateSearchIndex(em, page);
+        addToSlugTree(page);
         return replaced;
     }
 
     private void importVersions(EntityManager em, CMSPage page, List<CMSVersionExportDTO> versions) {
         if (versions != null) {
-            for (CMSVersionExportDTO versionDTO : versions) {
+            enableBatching(em);
+            // ascending, so the head columns end up pointing to the highest versions
+            List<CMSVersionExportDTO> sortedVersions = versions.stream()
+                .sorted(Comparator.comparing(CMSVersionExportDTO::getVersionNumber))
+                .collect(Collectors.toList());
+            List<CMSPageVersionTranslation> translations = new ArrayList<>();
+            for (CMSVersionExportDTO versionDTO : sortedVersions) {
                 CMSPageStatus status = CMSPageStatus.fromValue(versionDTO.getStatus());
                 CMSPageVersion version = new CMSPageVersion(
                     page, versionDTO.getVersionNumber(), versionDTO.getCreatedBy(), status);
@@ -500,29 +1520,189 @@ public class CMSPageService {
                     version.setCreatedAt(versionDTO.getCreatedAt());
                 }
 
-                if (versionDTO.getTranslations() != null) {
-                    for (CMSTranslationDTO translationDTO : versionDTO.getTranslations()) {
-                        CMSLanguage language = getOrCreateLanguage(em, translationDTO.getLanguage());
-                        CMSPageVersionTranslation translation = new CMSPageVersionTranslation(
-                            version, language, translationDTO.getTitle(), translationDTO.getContent());
-                        version.addTranslation(translation);
-                    }
+                addVersion(em, page, version);
+                translations.addAll(addTranslations(em, version, versionDTO.getTranslations()));
+            }
+            persistTranslations(em, translations, new HashMap<>());
+        }
+    }
+
+    /**
+     * Creates translations from DTOs and adds them to a version without persisting them.
+     */
+    private List<CMSPageVersionTranslation> addTranslations(EntityManager em, CMSPageVersion version,
+        List<CMSTranslationDTO> translationDTOs) {
+        if (translationDTOs == null) {
+            return List.of();
+        }
+        List<CMSPageVersionTranslation> translations = new ArrayList<>(translationDTOs.size());
+        for (CMSTranslationDTO translationDTO : translationDTOs) {
+            CMSLanguage language = languageRegistry.getLanguage(em, translationDTO.getLanguage());
+            CMSPageVersionTranslation translation = new CMSPageVersionTranslation(
+                version, language, translationDTO.getTitle(), translationDTO.getContent());
+            version.addTranslation(translation);
+            translations.add(translation);
+        }
+        return translations;
+    }
+
+    /**
+     * Persists translations grouped by table, contents first. Hibernate only batches consecutive inserts into the
+     * same table, persisting contents one by one with their translations would alternate between the tables.
+     * Contents whose text is already stored, in the database or earlier in the list, are replaced by the stored one.
+     * New contents are handed to the {@link CMSContentStore} as deltas against the previous content of their
+     * language. The versions of the translations have to be persisted already.
+     *
+     * @param translations     the translations of one page, in ascending version order
+     * @param previousContents the contents preceding the translations per language ID, updated with the persisted
+     *                         contents
+     */
+    private void persistTranslations(EntityManager em, List<CMSPageVersionTranslation> translations,
+        Map<Long, CMSTranslationContent> previousContents) {
+        Map<String, CMSTranslationContent> contents = findContents(em, translations.stream()
+            .map(translation -> translation.getContentEntity().getHash())
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet()));
+        for (CMSPageVersionTranslation translation : translations) {
+            CMSTranslationContent content = translation.getContentEntity();
+            CMSTranslationContent stored = content.getHash() == null ? null : contents.get(content.getHash());
+            if (stored == null) {
+                String text = content.getStoredContent();
+                contentStore.encode(content, previousContents.get(translation.getLanguage().getId()));
+                em.persist(content);
+                contentStore.put(content.getId(), text);
+                if (content.getHash() != null) {
+                    contents.put(content.getHash(), content);
                 }
+            } else {
+                translation.setContentEntity(stored);
+            }
+            previousContents.put(translation.getLanguage().getId(), translation.getContentEntity());
+        }
+        translations.forEach(em::persist);
+    }
 
-                page.addVersion(version);
-                em.persist(version);
+    /**
+     * Returns the contents the translations of a new version follow, per language ID: the content of the same
+     * language in the highest lower version. Empty if delta storage is disabled.
+     * <p>
+     * Like {@link #findContents(EntityManager, Set)}, the query does not flush: the translations are already added
+     * to the managed version, but their contents are not persisted yet, so an automatic flush would fail.
+     */
+    private Map<Long, CMSTranslationContent> findPreviousContents(EntityManager em, CMSPageVersion version,
+        List<CMSPageVersionTranslation> translations) {
+        Map<Long, CMSTranslationContent> previousContents = new HashMap<>();
+        if (!contentStore.isEnabled() || translations.isEmpty()) {
+            return previousContents;
+        }
+        TypedQuery<Object[]> query = em.createQuery(
+            "SELECT t.language.id, c FROM CMSPageVersionTranslation t JOIN t.pageVersion v JOIN t.content c"
+                + " WHERE v.page.id = :pageId AND t.language.id IN :languageIds"
+                + " AND v.versionNumber = (SELECT MAX(v2.versionNumber) FROM CMSPageVersionTranslation t2"
+                + " JOIN t2.pageVersion v2 WHERE v2.page.id = :pageId AND t2.language = t.language"
+                + " AND v2.versionNumber < :versionNumber)",
+            Object[].class);
+        query.setParameter(PARAM_PAGE_ID, version.getPage().getId());
+        query.setParameter("languageIds", translations.stream()
+            .map(translation -> translation.getLanguage().getId())
+            .collect(Collectors.toSet()));
+        query.setParameter(PARAM_VERSION_NUMBER, version.getVersionNumber());
+        query.setFlushMode(FlushModeType.COMMIT);
+        for (Object[] row : query.getResultList()) {
+            previousContents.put((Long) row[0], (CMSTranslationContent) row[1]);
+        }
+        return previousContents;
+    }
+
+    /**
+     * Returns references to stored contents with the given hashes, without loading the contents. The query does not
+     * flush, so contents persisted but not yet flushed in the current transaction are not found.
+     */
+    private Map<String, CMSTranslationContent> findContents(EntityManager em, Set<String> hashes) {
+        Map<String, CMSTranslationContent> contents = new HashMap<>();
+        List<String> hashList = List.copyOf(hashes);
+        for (int start = 0; start < hashList.size(); start += IN_BATCH_SIZE) {
+            List<Object[]> rows = em.createQuery(
+                "SELECT c.hash, c.id FROM CMSTranslationContent c WHERE c.hash IN :hashes", Object[].class)
+                .setParameter("hashes", hashList.subList(start, Math.min(start + IN_BATCH_SIZE, hashList.size())))
+                .setFlushMode(FlushModeType.COMMIT)
+                .getResultList();
+            for (Object[] row : rows) {
+                contents.putIfAbsent((String) row[0], em.getReference(CMSTranslationContent.class, row[1]));
             }
         }
+        return contents;
     }
 
-    private CMSPageExportDTO toPageExportDTO(CMSPage page) {
-        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+    /**
+     * Returns the IDs of the contents referenced by translations of the given pages.
+     */
+    private List<Long> getContentIds(EntityManager em, List<Long> pageIds) {
+        List<Long> contentIds = new ArrayList<>();
+        for (int start = 0; start < pageIds.size(); start += IN_BATCH_SIZE) {
+            contentIds.addAll(em.createQuery("SELECT DISTINCT t.content.id FROM CMSPageVersionTranslation t"
+                + " WHERE t.pageVersion.page.id IN :pageIds", Long.class)
+                .setParameter("pageIds", pageIds.subList(start, Math.min(start + IN_BATCH_SIZE, pageIds.size())))
+                .getResultList());
+        }
+        return contentIds;
+    }
+
+    /**
+     * Removes those of the given contents and their base contents that are no longer referenced by any translation
+     * or delta. Contents are shared, so they are not removed together with their translations. Removing a delta can
+     * release its base, so the removal is repeated until no content is removed.
+     */
+    private void removeUnreferencedContents(EntityManager em, List<Long> contentIds) {
+        em.flush();
+        List<Long> candidateIds = addBaseContentIds(em, contentIds);
+        int removed;
+        do {
+            removed = 0;
+            for (int start = 0; start < candidateIds.size(); start += IN_BATCH_SIZE) {
+                removed += em.createQuery("DELETE FROM CMSTranslationContent c WHERE c.id IN :contentIds"
+                    + " AND NOT EXISTS (SELECT t.id FROM CMSPageVersionTranslation t WHERE t.content = c)"
+                    + " AND NOT EXISTS (SELECT d.id FROM CMSTranslationContent d WHERE d.base = c)")
+                    .setParameter("contentIds", candidateIds.subList(start,
+                        Math.min(start + IN_BATCH_SIZE, candidateIds.size())))
+                    .executeUpdate();
+            }
+        } while (removed > 0);
+    }
+
+    /**
+     * Returns the given content IDs together with the IDs of all contents their deltas are based on.
+     */
+    private List<Long> addBaseContentIds(EntityManager em, List<Long> contentIds) {
+        Set<Long> allIds = new LinkedHashSet<>(contentIds);
+        List<Long> pending = contentIds;
+        while (!pending.isEmpty()) {
+            List<Long> baseIds = new ArrayList<>();
+            for (int start = 0; start < pending.size(); start += IN_BATCH_SIZE) {
+                baseIds.addAll(em.createQuery("SELECT c.base.id FROM CMSTranslationContent c"
+                    + " WHERE c.id IN :contentIds AND c.base IS NOT NULL", Long.class)
+                    .setParameter("contentIds", pending.subList(start, Math.min(start + IN_BATCH_SIZE,
+                        pending.size())))
+                    .getResultList());
+            }
+            pending = baseIds.stream().filter(allIds::add).toList();
+        }
+        return List.copyOf(allIds);
+    }
+
+    /**
+     * Sets the JDBC batch size of the current session for the CMS write operations.
+     */
+    private void enableBatching(EntityManager em) {
+        em.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+    }
+
+    private CMSPageExportDTO toPageExportDTO(CMSPage page, List<CMSPageVersion> versions) {
         CMSPageExportDTO dto = new CMSPageExportDTO();
         dto.setSlug(page.getSlug());
         dto.setCreatedAt(page.getCreatedAt());
         dto.setUpdatedAt(page.getUpdatedAt());
 
-        List<CMSPageVersion> versions = getVersionEntities(em, page.getId());
         dto.setVersions(versions.stream()
             .map(this::toVersionExportDTO)
             .collect(Collectors.toList()));
@@ -540,8 +1720,30 @@ public class CMSPageService {
             .map(t -> new CMSTranslationDTO(
                 t.getLanguage().getCode(),
                 t.getTitle(),
-                t.getContent()))
+                getText(t)))
             .collect(Collectors.toList()));
         return dto;
     }
+
+    /**
+     * A published translation listed in the sitemap.
+     *
+     * @param slug         the slug of the page
+     * @param language     the language code
+     * @param lastModified the creation time of the published version
+     */
+    public record SitemapEntry(String slug, String language, Instant lastModified) {
+    }
+
+    /**
+     * A part of the sitemap, the pages with IDs in a range.
+     *
+     * @param afterPageId the page ID after which the part starts, exclusive, <code>0</code> for the first part
+     * @param untilPageId the page ID at which the part ends, inclusive, {@link Long#MAX_VALUE} for the last part
+     */
+    public record SitemapPart(long afterPageId, long untilPageId) {
+    }
+
+    private record SitemapParts(String validatorKey, int maxEntries, List<SitemapPart> parts) {
+    }
 }
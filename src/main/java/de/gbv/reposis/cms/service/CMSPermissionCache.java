@@ -0,0 +1,251 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.config.MCRConfigurationException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Process-wide cache of permission decisions for CMS permission IDs, shared across requests and sessions.
+ * Decisions are keyed by the user ID and the client IP class, see {@link #getSubjectKey()}.
+ * <p>
+ * Changes of ACL rules and rule mappings committed through JPA in this process clear the cache, see
+ * {@link CMSAccessChangeIntegrator}. Changes made elsewhere expire after a configurable time or can be applied with
+ * the CLI command <code>cms clear caches</code>. Caching can be disabled per permission type.
+ * <p>
+ * ACL rules may depend on the client IP, so the IP is part of the key. If the rules only distinguish networks,
+ * <code>MCR.CMS.Cache.Permission.IPNetworks</code> lists them in CIDR notation; clients are then keyed by the first
+ * matching network or, if none matches, a shared class, so all anonymous visitors of a network share the decisions
+ * of the guest user. Without networks the full IP is used; if no rule for CMS permission IDs depends on the IP,
+ * <code>MCR.CMS.Cache.Permission.KeyByIP=false</code> lets all clients of a user share the decisions.
+ */
+public final class CMSPermissionCache {
+
+    private static final String PROPERTY_PREFIX = "MCR.CMS.Cache.Permission.";
+
+    /**
+     * Default maximum number of cached decisions.
+     */
+    public static final long DEFAULT_MAX_SIZE = 100_000;
+
+    /**
+     * Default expiry: 1 minute.
+     */
+    public static final long DEFAULT_EXPIRE_AFTER_WRITE = 60;
+
+    private static final CMSPermissionCache INSTANCE = new CMSPermissionCache();
+
+    private final Cache<Key, Boolean> cache;
+
+    private final boolean pagesEnabled;
+
+    private final boolean assetsEnabled;
+
+    private final boolean keyByIP;
+
+    private final List<IPNetwork> ipNetworks;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private CMSPermissionCache() {
+        cache = CacheBuilder.newBuilder()
+            .maximumSize(MCRConfiguration2.getLong(PROPERTY_PREFIX + "MaxSize").orElse(DEFAULT_MAX_SIZE))
+            .expireAfterWrite(MCRConfiguration2.getLong(PROPERTY_PREFIX + "ExpireAfterWrite")
+                .orElse(DEFAULT_EXPIRE_AFTER_WRITE), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+        pagesEnabled = MCRConfiguration2.getBoolean(PROPERTY_PREFIX + "Pages.Enabled").orElse(true);
+        assetsEnabled = MCRConfiguration2.getBoolean(PROPERTY_PREFIX + "Assets.Enabled").orElse(true);
+        keyByIP = MCRConfiguration2.getBoolean(PROPERTY_PREFIX + "KeyByIP").orElse(true);
+        ipNetworks = MCRConfiguration2.getString(PROPERTY_PREFIX + "IPNetworks").map(MCRConfiguration2::splitValue)
+            .map(networks -> networks.filter(network -> !network.isBlank()).map(IPNetwork::parse).toList())
+            .orElse(List.of());
+    }
+
+    public static CMSPermissionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached decision for the current user, evaluating it on a cache miss.
+     *
+     * @param permissionId the permission ID
+     * @param permission   the permission
+     * @param evaluator    evaluates the permission with the ACL engine
+     * @return true if the current user has the permission
+     */
+    public boolean checkPermission(String permissionId, String permission, BooleanSupplier evaluator) {
+        if (!isEnabled(permissionId)) {
+            return evaluator.getAsBoolean();
+        }
+        Key key = new Key(getSubjectKey(), permissionId, permission);
+        Boolean decision = cache.getIfPresent(key);
+        if (decision == null) {
+            decision = evaluator.getAsBoolean();
+            cache.put(key, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Returns the part of the cache key that identifies the current user: the user ID, the client IP class (if
+     * enabled) and the generation of the ACL rules. Responses that depend on permissions must be keyed the same way,
+     * e.g. their HTTP validators, so they change with the rules.
+     */
+    public String getSubjectKey() {
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        String userId = session.getUserInformation().getUserID();
+        String subject = keyByIP ? userId + "@" + getIPClass(session.getCurrentIP(), ipNetworks) : userId;
+        return subject + "#" + generation.get();
+    }
+
+    /**
+     * Removes all decisions after ACL rules changed. Decisions evaluated concurrently with the change are stored
+     * under the previous generation and never returned again.
+     */
+    public void onAccessRulesChanged() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes all decisions.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private boolean isEnabled(String permissionId) {
+        if (permissionId.startsWith(CMSPermissionService.CMS_PAGE_PERMISSION_PREFIX)) {
+            return pagesEnabled;
+        }
+        if (permissionId.startsWith(CMSPermissionService.CMS_ASSET_PERMISSION_PREFIX)) {
+            return assetsEnabled;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the part of the key for the given client IP: the first matching network, <code>other</code> if no
+     * network matches, or the IP itself if no networks are given.
+     */
+    static String getIPClass(String ip, List<IPNetwork> networks) {
+        if (networks.isEmpty()) {
+            return ip;
+        }
+        byte[] address = IPNetwork.toAddress(ip);
+        if (address != null) {
+            for (IPNetwork network : networks) {
+                if (network.contains(address)) {
+                    return network.spec();
+                }
+            }
+        }
+        return "other";
+    }
+
+    private record Key(String subject, String permissionId, String permission) {
+    }
+
+    /**
+     * An IPv4 or IPv6 network in CIDR notation, e.g. <code>10.0.0.0/8</code>.
+     */
+    record IPNetwork(String spec, byte[] address, int prefixLength) {
+
+        private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+        private static final Pattern IPV6_LITERAL = Pattern.compile("[0-9a-fA-F.:]*:[0-9a-fA-F.:]*");
+
+        static IPNetwork parse(String spec) {
+            String[] parts = spec.split("/", 2);
+            byte[] address = toAddress(parts[0]);
+            if (address == null) {
+                throw new MCRConfigurationException("Invalid network in " + PROPERTY_PREFIX + "IPNetworks: " + spec);
+            }
+            int prefixLength = address.length * 8;
+            if (parts.length == 2) {
+                try {
+                    prefixLength = Integer.parseInt(parts[1]);
+                } catch (NumberFormatException e) {
+                    prefixLength = -1;
+                }
+                if (prefixLength < 0 || prefixLength > address.length * 8) {
+                    throw new MCRConfigurationException(
+                        "Invalid prefix length in " + PROPERTY_PREFIX + "IPNetworks: " + spec);
+                }
+            }
+            return new IPNetwork(spec.toLowerCase(Locale.ROOT), address, prefixLength);
+        }
+
+        /**
+         * Returns the bytes of an IP literal, or null if the string is no IP literal. Host names are never resolved.
+         */
+        static byte[] toAddress(String ip) {
+            if (ip == null || !IPV4_LITERAL.matcher(ip).matches() && !IPV6_LITERAL.matcher(ip).matches()) {
+                return null;
+            }
+            try {
+                return InetAddress.getByName(ip).getAddress();
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+
+        boolean contains(byte[] other) {
+            if (other.length != address.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (other[i] != address[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits) & 0xFF;
+            return (other[fullBytes] & mask) == (address[fullBytes] & mask);
+        }
+    }
+}
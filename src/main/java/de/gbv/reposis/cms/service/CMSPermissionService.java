@@ -19,8 +19,10 @@
 package de.gbv.reposis.cms.service;
 
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.mycore.access.MCRAccessManager;
 
@@ -30,9 +32,17 @@ import de.gbv.reposis.cms.model.CMSPageVersion;
 
 /**
  * Service for checking CMS permissions.
+ * <p>
+ * Decisions are memoized per instance, so each (permission ID, permission) pair is resolved at most once.
+ * Instances are therefore meant to live for a single request of a single user, like the resources that create
+ * them. Across requests, decisions are shared through the {@link CMSPermissionCache}.
  */
 public class CMSPermissionService {
 
+    private static final LongAdder EVALUATIONS = new LongAdder();
+
+    private static final LongAdder SAVED_EVALUATIONS = new LongAdder();
+
     public static final String PERMISSION_PAGE_READ = "read";
     public static final String PERMISSION_PAGE_WRITE = "write";
     public static final String PERMISSION_PAGE_DELETE = "delete";
@@ -43,9 +53,43 @@ public class CMSPermissionService {
     private static final String PERMISSION_ASSETS_READ = "read";
     private static final String PERMISSION_ASSETS_WRITE = "write";
     private static final String PERMISSION_ASSETS_DELETE = "delete";
-    private static final String PERMISSION_ASSETS_ID_PREFIX = "cms:asset:";
+    public static final String CMS_ASSET_PERMISSION_PREFIX = "cms:asset:";
     public static final String CMS_PAGE_PERMISSION_PREFIX = "cms:page:";
 
+    private final Map<String, Boolean> decisions = new HashMap<>();
+
+    /**
+     * Returns the number of permission checks evaluated by the ACL engine since startup.
+     */
+    public static long getEvaluationCount() {
+        return EVALUATIONS.sum();
+    }
+
+    /**
+     * Returns the number of permission checks answered from the per-request memo since startup.
+     */
+    public static long getSavedEvaluationCount() {
+        return SAVED_EVALUATIONS.sum();
+    }
+
+    /**
+     * Checks a permission for the current user, evaluating each pair only once per instance.
+     */
+    private boolean hasPermission(String permissionId, String permission) {
+        String key = permissionId + '\n' + permission;
+        Boolean decision = decisions.get(key);
+        if (decision != null) {
+            SAVED_EVALUATIONS.increment();
+            return decision;
+        }
+        boolean allowed = CMSPermissionCache.getInstance().checkPermission(permissionId, permission, () -> {
+            EVALUATIONS.increment();
+            return MCRAccessManager.checkPermission(permissionId, permission);
+        });
+        decisions.put(key, allowed);
+        return allowed;
+    }
+
     /**
      * Check if the current user has a specific permission on a page.
      *
@@ -54,7 +98,7 @@ public class CMSPermissionService {
      * @return true if the user has the permission
      */
     public boolean checkPermission(CMSPage page, String permission) {
-        return MCRAccessManager.checkPermission(page.getPermissionId(), permission);
+        return hasPermission(page.getPermissionId(), permission);
     }
 
     /**
@@ -69,25 +113,49 @@ public class CMSPermissionService {
      * @return true if the user can read the page
      */
     public boolean canReadPage(CMSPage page, List<CMSPageVersion> versions) {
-        if (!MCRAccessManager.checkPermission(page.getPermissionId(), PERMISSION_PAGE_READ)) {
-            return false;
-        }
-
         // Find the last non-draft version
-        Optional<CMSPageVersion> lastNonDraftVersion = versions.stream()
+        CMSPageStatus lastNonDraftStatus = versions.stream()
             .sorted(Comparator.comparingInt(CMSPageVersion::getVersionNumber).reversed())
-            .filter(v -> v.getStatus() != CMSPageStatus.DRAFT)
-            .findFirst();
+            .map(CMSPageVersion::getStatus)
+            .filter(status -> status != CMSPageStatus.DRAFT)
+            .findFirst()
+            .orElse(null);
+        return canReadPage(page.getPermissionId(), lastNonDraftStatus);
+    }
 
-        if (lastNonDraftVersion.isEmpty()) {
+    /**
+     * Check if the current user can read a page, using the head columns of the page.
+     *
+     * @param page the page to check, with initialized head columns
+     * @return true if the user can read the page
+     * @see #canReadPage(String, CMSPageStatus)
+     */
+    public boolean canReadPage(CMSPage page) {
+        return canReadPage(page.getPermissionId(), page.getLatestNonDraftStatus());
+    }
+
+    /**
+     * Check if the current user can read a page, given the status of its last non-draft version.
+     *
+     * @param permissionId       the permission ID of the page
+     * @param lastNonDraftStatus the status of the last non-draft version, or <code>null</code> if the page only
+     *                           has drafts
+     * @return true if the user can read the page
+     * @see #canReadPage(CMSPage, List)
+     */
+    public boolean canReadPage(String permissionId, CMSPageStatus lastNonDraftStatus) {
+        if (!hasPermission(permissionId, PERMISSION_PAGE_READ)) {
+            return false;
+        }
+
+        if (lastNonDraftStatus == null) {
             // No non-draft version exists, only users with read-draft can see the page
-            return MCRAccessManager.checkPermission(page.getPermissionId(), PERMISSION_PAGE_READ_DRAFT);
+            return hasPermission(permissionId, PERMISSION_PAGE_READ_DRAFT);
         }
 
-        CMSPageVersion version = lastNonDraftVersion.get();
-        if (version.getStatus() == CMSPageStatus.ARCHIVED) {
+        if (lastNonDraftStatus == CMSPageStatus.ARCHIVED) {
             // Last non-draft version is archived, need read-archived permission
-            return MCRAccessManager.checkPermission(page.getPermissionId(), PERMISSION_PAGE_READ_ARCHIVED);
+            return hasPermission(permissionId, PERMISSION_PAGE_READ_ARCHIVED);
         }
 
         // Last non-draft version is published, read permission is sufficient
@@ -103,16 +171,26 @@ public class CMSPermissionService {
      * @return true if the user can read the version
      */
     public boolean canReadVersion(CMSPage page, CMSPageVersion version) {
-        if (!MCRAccessManager.checkPermission(page.getPermissionId(), PERMISSION_PAGE_READ)) {
+        return canReadVersion(page.getPermissionId(), version.getStatus());
+    }
+
+    /**
+     * Check if the current user can read a version with the given status.
+     * Assumes canReadPage has already been checked.
+     *
+     * @param permissionId the permission ID of the page
+     * @param status       the status of the version
+     * @return true if the user can read a version with this status
+     */
+    public boolean canReadVersion(String permissionId, CMSPageStatus status) {
+        if (!hasPermission(permissionId, PERMISSION_PAGE_READ)) {
             return false;
         }
-        if (version.getStatus() == CMSPageStatus.DRAFT) {
-            return MCRAccessManager.checkPermission(page.getPermissionId(),
-                PERMISSION_PAGE_READ_DRAFT);
+        if (status == CMSPageStatus.DRAFT) {
+            return hasPermission(permissionId, PERMISSION_PAGE_READ_DRAFT);
         }
-        if (version.getStatus() == CMSPageStatus.ARCHIVED) {
-            return MCRAccessManager.checkPermission(page.getPermissionId(),
-                PERMISSION_PAGE_READ_ARCHIVED);
+        if (status == CMSPageStatus.ARCHIVED) {
+            return hasPermission(permissionId, PERMISSION_PAGE_READ_ARCHIVED);
         }
         return true;
     }
@@ -155,8 +233,8 @@ public class CMSPermissionService {
      * @return true if the user can read the asset
      */
     public boolean canReadAsset(String assetId) {
-        String permissionId = PERMISSION_ASSETS_ID_PREFIX + assetId;
-        return MCRAccessManager.checkPermission(permissionId, PERMISSION_ASSETS_READ);
+        String permissionId = CMS_ASSET_PERMISSION_PREFIX + assetId;
+        return hasPermission(permissionId, PERMISSION_ASSETS_READ);
     }
 
     /**
@@ -166,8 +244,8 @@ public class CMSPermissionService {
      * @return true if the user can write to the asset
      */
     public boolean canWriteAsset(String assetId) {
-        String permissionId = PERMISSION_ASSETS_ID_PREFIX + assetId;
-        return MCRAccessManager.checkPermission(permissionId, PERMISSION_ASSETS_WRITE);
+        String permissionId = CMS_ASSET_PERMISSION_PREFIX + assetId;
+        return hasPermission(permissionId, PERMISSION_ASSETS_WRITE);
     }
 
     /**
@@ -177,8 +255,8 @@ public class CMSPermissionService {
      * @return true if the user can delete the asset
      */
     public boolean canDeleteAsset(String assetId) {
-        String permissionId = PERMISSION_ASSETS_ID_PREFIX + assetId;
-        return MCRAccessManager.checkPermission(permissionId, PERMISSION_ASSETS_DELETE);
+        String permissionId = CMS_ASSET_PERMISSION_PREFIX + assetId;
+        return hasPermission(permissionId, PERMISSION_ASSETS_DELETE);
     }
 
     /**
@@ -189,7 +267,7 @@ public class CMSPermissionService {
      */
     public boolean canWriteSlug(String slug) {
         String permissionId = CMS_PAGE_PERMISSION_PREFIX + slug;
-        return MCRAccessManager.checkPermission(permissionId, PERMISSION_PAGE_WRITE);
+        return hasPermission(permissionId, PERMISSION_PAGE_WRITE);
     }
 
     /**
@@ -200,7 +278,7 @@ public class CMSPermissionService {
      */
     public boolean canReadDraftSlug(String slug) {
         String permissionId = CMS_PAGE_PERMISSION_PREFIX + slug;
-        return MCRAccessManager.checkPermission(permissionId, PERMISSION_PAGE_READ_DRAFT);
+        return hasPermission(permissionId, PERMISSION_PAGE_READ_DRAFT);
     }
 
     /**
@@ -211,7 +289,7 @@ public class CMSPermissionService {
      */
     public boolean canReadArchivedSlug(String slug) {
         String permissionId = CMS_PAGE_PERMISSION_PREFIX + slug;
-        return MCRAccessManager.checkPermission(permissionId, PERMISSION_PAGE_READ_ARCHIVED);
+        return hasPermission(permissionId, PERMISSION_PAGE_READ_ARCHIVED);
     }
 
     /**
@@ -222,7 +300,7 @@ public class CMSPermissionService {
      */
     public boolean canDeleteSlug(String slug) {
         String permissionId = CMS_PAGE_PERMISSION_PREFIX + slug;
-        return MCRAccessManager.checkPermission(permissionId, PERMISSION_PAGE_DELETE);
+        return hasPermission(permissionId, PERMISSION_PAGE_DELETE);
     }
 
 }
@@ -0,0 +1,213 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mycore.common.config.MCRConfiguration2;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.dto.CMSTranslationDetailDTO;
+import de.gbv.reposis.cms.dto.CMSVersionDetailDTO;
+import de.gbv.reposis.cms.model.CMSPageStatus;
+
+/**
+ * Process-wide cache of resolved published content, keyed by page ID or slug and language.
+ * The cache is bounded by the size of the cached content and evicts the least recently used entries.
+ * Entries store the page visibility data, so permissions are still checked on every read.
+ * {@link CMSPageService} invalidates all entries of a page whenever it writes to that page.
+ * <p>
+ * Every invalidation advances a generation counter. Readers fetch the generation before loading from the database
+ * and pass it to the put methods, so content loaded before a concurrent invalidation is not cached.
+ */
+public final class CMSPublishedContentCache {
+
+    /**
+     * Property key for the maximum size of the cached content in bytes.
+     */
+    public static final String PROPERTY_MAX_SIZE = "MCR.CMS.Cache.PublishedContent.MaxSize";
+
+    /**
+     * Property key for the number of seconds after which an entry is reloaded.
+     * Bounds the staleness of entries for changes made by other processes, e.g. the command line interface.
+     */
+    public static final String PROPERTY_EXPIRE_AFTER_WRITE = "MCR.CMS.Cache.PublishedContent.ExpireAfterWrite";
+
+    /**
+     * Default maximum size: 64 MB.
+     */
+    public static final long DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Default expiry: 10 minutes.
+     */
+    public static final long DEFAULT_EXPIRE_AFTER_WRITE = 600;
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private static final CMSPublishedContentCache INSTANCE = new CMSPublishedContentCache();
+
+    private final Cache<Key, Entry<?>> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private CMSPublishedContentCache() {
+        cache = CacheBuilder.newBuilder()
+            .maximumWeight(MCRConfiguration2.getLong(PROPERTY_MAX_SIZE).orElse(DEFAULT_MAX_SIZE))
+            .weigher((Key key, Entry<?> entry) -> entry.weight())
+            .expireAfterWrite(MCRConfiguration2.getLong(PROPERTY_EXPIRE_AFTER_WRITE)
+                .orElse(DEFAULT_EXPIRE_AFTER_WRITE), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+    }
+
+    public static CMSPublishedContentCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the current invalidation generation, to be passed to the put methods.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached highest published version of a page.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Entry<CMSVersionDetailDTO>> getVersion(Long pageId) {
+        return Optional.ofNullable((Entry<CMSVersionDetailDTO>) cache.getIfPresent(new Key(pageId, null, null)));
+    }
+
+    /**
+     * Caches the highest published version of a page.
+     *
+     * @param loadedGeneration the generation fetched before the version was loaded
+     */
+    public void putVersion(long loadedGeneration, Long pageId, String slug, CMSPageStatus lastNonDraftStatus,
+        CMSVersionDetailDTO version) {
+        int weight = ENTRY_OVERHEAD;
+        if (version.getTranslations() != null) {
+            for (CMSTranslationDTO translation : version.getTranslations()) {
+                weight += weigh(translation.getTitle()) + weigh(translation.getContent());
+            }
+        }
+        put(loadedGeneration, new Key(pageId, slug, null),
+            new Entry<>(CMSPermissionService.CMS_PAGE_PERMISSION_PREFIX + slug, lastNonDraftStatus, version, weight));
+    }
+
+    /**
+     * Returns the cached translation of the highest published version of the page with the given slug.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Entry<CMSTranslationDetailDTO>> getTranslation(String slug, String languageCode) {
+        return Optional.ofNullable(
+            (Entry<CMSTranslationDetailDTO>) cache.getIfPresent(new Key(null, slug, languageCode)));
+    }
+
+    /**
+     * Caches the translation of the highest published version of the page with the given slug.
+     *
+     * @param loadedGeneration the generation fetched before the translation was loaded
+     */
+    public void putTranslation(long loadedGeneration, String slug, CMSPageStatus lastNonDraftStatus,
+        CMSTranslationDetailDTO translation) {
+        int weight = ENTRY_OVERHEAD + weigh(translation.getTitle()) + weigh(translation.getContent());
+        put(loadedGeneration, new Key(null, slug, translation.getLanguage()),
+            new Entry<>(CMSPermissionService.CMS_PAGE_PERMISSION_PREFIX + slug, lastNonDraftStatus, translation,
+                weight));
+    }
+
+    /**
+     * Removes all entries of a page, addressed by ID or by slug.
+     *
+     * @param pageId the page ID, may be <code>null</code> for pages that are not yet persisted
+     * @param slug   the slug of the page
+     */
+    public void invalidatePage(Long pageId, String slug) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> pageId != null && pageId.equals(key.pageId())
+            || key.pageId() == null && Objects.equals(slug, key.slug()));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private void put(long loadedGeneration, Key key, Entry<?> entry) {
+        if (loadedGeneration == generation.get()) {
+            cache.put(key, entry);
+        }
+    }
+
+    private static int weigh(String value) {
+        return value == null ? 0 : value.length() * Character.BYTES;
+    }
+
+    /**
+     * Cache key: either a page ID or a slug, and a language code for single translations.
+     */
+    private record Key(Long pageId, String slug, String languageCode) {
+
+        @Override
+        public boolean equals(Object o) {
+            // the slug of ID based keys is only kept for invalidation
+            return o instanceof Key other && Objects.equals(pageId, other.pageId)
+                && (pageId != null || Objects.equals(slug, other.slug))
+                && Objects.equals(languageCode, other.languageCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pageId, pageId == null ? slug : null, languageCode);
+        }
+    }
+
+    /**
+     * Cached content together with the data needed to check the page visibility.
+     *
+     * @param permissionId       the permission ID of the page
+     * @param lastNonDraftStatus the status of the last non-draft version of the page
+     * @param value              the cached DTO
+     * @param weight             the approximate size of the entry in bytes
+     * @param <T>                the DTO type
+     */
+    public record Entry<T>(String permissionId, CMSPageStatus lastNonDraftStatus, T value, int weight) {
+    }
+}
@@ -0,0 +1,614 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jdbc.ReturningWork;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.config.MCRConfiguration2;
+
+import de.gbv.reposis.cms.model.CMSCompressedTextConverter;
+import de.gbv.reposis.cms.model.CMSPage;
+import de.gbv.reposis.cms.model.CMSPageVersion;
+import de.gbv.reposis.cms.model.CMSPageVersionTranslation;
+import de.gbv.reposis.cms.model.CMSTranslationContent;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Migrates existing CMS tables to the current mapping.
+ * New tables and columns are created by Hibernate's schema update; this class moves data and removes or changes
+ * what the schema update cannot. Every step checks whether it is still pending, so the migration can be run
+ * repeatedly.
+ * <p>
+ * Table names in the SQL statements are written as <code>{table}</code> and replaced by the name qualified with
+ * <code>MCR.JPA.DefaultSchema</code>, if set. Identifiers are not quoted, like in the schema created by Hibernate, so
+ * the database folds them to the case it stores them in, e.g. upper case on H2 and lower case on PostgreSQL.
+ * <p>
+ * Some steps are required before the current mapping can write to existing tables: contents still stored in the
+ * translation table, whose column does not accept null, and ID sequences behind the IDs of existing rows. These are
+ * reported by {@link #getPendingSteps()} and checked at startup by {@link de.gbv.reposis.cms.CMSSchemaCheck}.
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public class CMSSchemaMigration {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final Pattern TABLE_PLACEHOLDER = Pattern.compile("\\{(\\w+)}");
+
+    private static final String TABLE_TRANSLATION = "cms_page_version_translation";
+
+    private static final String TABLE_CONTENT = "cms_translation_content";
+
+    private static final String TABLE_PAGE = "cms_page";
+
+    private static final String TABLE_VERSION = "cms_page_version";
+
+    private static final String COLUMN_PAGE_ID = "page_id";
+
+    private static final String COLUMN_VERSION_NUMBER = "version_number";
+
+    private static final String SEQUENCE_SUFFIX = "_seq";
+
+    private static final int HASH_BATCH_SIZE = 500;
+
+    private static final String INDEX_SLUG_PATTERN = "cms_page_slug_pattern_idx";
+
+    /**
+     * Tables with IDs generated by a sequence named after the table, in the order they are checked.
+     */
+    private static final List<String> SEQUENCE_TABLES = List.of("cms_language", TABLE_PAGE, TABLE_VERSION,
+        TABLE_TRANSLATION, TABLE_CONTENT);
+
+    /**
+     * Allocation size of the sequence generators declared on the entities.
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private final String schema = MCRConfiguration2.getString("MCR.JPA.DefaultSchema").orElse(null);
+
+    private Dialect dialect;
+
+    /**
+     * Runs all pending migration steps in the current transaction.
+     *
+     * @return descriptions of the applied steps
+     */
+    public List<String> migrate() {
+        return migrate(MCREntityManagerProvider.getCurrentEntityManager());
+    }
+
+    /**
+     * Runs all pending migration steps in the active transaction of the given entity manager.
+     *
+     * @return descriptions of the applied steps
+     */
+    public List<String> migrate(EntityManager em) {
+        em.flush();
+        return doReturningWork(em, this::migrate);
+    }
+
+    /**
+     * Returns the migration steps that have to be run before the current mapping can write to the CMS tables, see
+     * {@link #getPendingSteps(EntityManager)}.
+     */
+    public List<String> getPendingSteps() {
+        return getPendingSteps(MCREntityManagerProvider.getCurrentEntityManager());
+    }
+
+    /**
+     * Returns the migration steps that have to be run before the current mapping can write to the CMS tables:
+     * moving contents out of the translation table and advancing or creating ID sequences. Steps that only improve
+     * existing data, like deduplicating contents or creating indexes, are not reported. Sequences are read from the
+     * catalog without consuming IDs; on databases other than PostgreSQL and H2 only their existence is checked.
+     *
+     * @param em an entity manager with an active transaction
+     * @return descriptions of the pending steps, empty if the tables can be written
+     */
+    public List<String> getPendingSteps(EntityManager em) {
+        return doReturningWork(em, this::getPendingSteps);
+    }
+
+    private List<String> doReturningWork(EntityManager em, ReturningWork<List<String>> work) {
+        Session session = em.unwrap(Session.class);
+        dialect = session.getSessionFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        return session.doReturningWork(work);
+    }
+
+    private List<String> getPendingSteps(Connection connection) throws SQLException {
+        List<String> pending = new ArrayList<>();
+        if (columnExists(connection, TABLE_TRANSLATION, "content")) {
+            pending.add("Move translation content to " + TABLE_CONTENT);
+        }
+        for (String table : SEQUENCE_TABLES) {
+            String sequence = table + SEQUENCE_SUFFIX;
+            // a failed statement aborts the whole transaction on PostgreSQL
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                if (isSequenceBehind(connection, table, false)) {
+                    pending.add("Advance sequence " + sequence + " past the highest ID of " + table);
+                }
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                LOGGER.debug("Could not check sequence {}", sequence, e);
+                connection.rollback(savepoint);
+                pending.add("Create sequence " + sequence + " by updating the schema (MCR.JPA.Hbm2ddlAuto=update)");
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Rewrites the stored contents with IDs above the given one, up to the batch size, in the current transaction.
+     * Contents are compressed or decompressed according to the current configuration of the
+     * {@link CMSCompressedTextConverter}, unchanged rows are not written.
+     *
+     * @param afterId   the highest ID of the previous batch, 0 for the first batch
+     * @param batchSize the maximum number of contents to read
+     * @return the result of the batch
+     */
+    public RecompressionBatch recompressContents(long afterId, int batchSize) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        em.flush();
+        return em.unwrap(Session.class).doReturningWork(connection -> recompressContents(connection, afterId,
+            batchSize));
+    }
+
+    private RecompressionBatch recompressContents(Connection connection, long afterId, int batchSize)
+        throws SQLException {
+        CMSCompressedTextConverter converter = new CMSCompressedTextConverter();
+        int read = 0;
+        int updated = 0;
+        long lastId = afterId;
+        try (PreparedStatement select = connection.prepareStatement(resolveTables("SELECT id, content FROM {"
+            + TABLE_CONTENT + "} WHERE id > ? ORDER BY id"));
+            PreparedStatement update = connection.prepareStatement(resolveTables(
+                "UPDATE {" + TABLE_CONTENT + "} SET content = ? WHERE id = ?"))) {
+            select.setLong(1, afterId);
+            select.setMaxRows(batchSize);
+            select.setFetchSize(batchSize);
+            try (ResultSet contents = select.executeQuery()) {
+                while (contents.next()) {
+                    read++;
+                    lastId = contents.getLong(1);
+                    String stored = contents.getString(2);
+                    String recompressed = converter.compress(CMSCompressedTextConverter.decompress(stored));
+                    if (!recompressed.equals(stored)) {
+                        update.setString(1, recompressed);
+                        update.setLong(2, lastId);
+                        update.addBatch();
+                        updated++;
+                    }
+                }
+            }
+            update.executeBatch();
+        }
+        return new RecompressionBatch(read, updated, read < batchSize ? null : lastId);
+    }
+
+    private List<String> migrate(Connection connection) throws SQLException {
+        List<String> applied = new ArrayList<>();
+        moveContents(connection, applied);
+        addVersionNumberConstraint(connection, applied);
+        deduplicateContents(connection, applied);
+        for (IndexDefinition index : indexes(connection)) {
+            if (!indexExists(connection, index.table(), index.name())) {
+                execute(connection, "CREATE INDEX " + index.name() + " ON {" + index.table() + "} ("
+                    + index.columns() + ")");
+                applied.add("Created index " + index.name());
+            }
+        }
+        for (String table : SEQUENCE_TABLES) {
+            if (advanceSequence(connection, table)) {
+                applied.add("Advanced sequence " + table + SEQUENCE_SUFFIX + " past the highest ID of " + table);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Moves the contents of translations from the translation table to the content table.
+     */
+    private void moveContents(Connection connection, List<String> applied) throws SQLException {
+        if (!columnExists(connection, TABLE_TRANSLATION, "content")) {
+            return;
+        }
+        if (!columnExists(connection, TABLE_TRANSLATION, "content_id")) {
+            throw new SQLException("Column content_id of " + TABLE_TRANSLATION + " does not exist, "
+                + "update the schema (MCR.JPA.Hbm2ddlAuto=update) before migrating");
+        }
+        execute(connection,
+            "INSERT INTO {" + TABLE_CONTENT + "} (id, content)"
+                + " SELECT id, content FROM {" + TABLE_TRANSLATION + "} WHERE content_id IS NULL",
+            "UPDATE {" + TABLE_TRANSLATION + "} SET content_id = id WHERE content_id IS NULL",
+            "ALTER TABLE {" + TABLE_TRANSLATION + "} DROP COLUMN content");
+        applied.add("Moved translation content to " + TABLE_CONTENT);
+    }
+
+    /**
+     * Adds the unique constraint on page and version number, after renumbering duplicates.
+     */
+    private void addVersionNumberConstraint(Connection connection, List<String> applied) throws SQLException {
+        if (uniqueIndexExists(connection, TABLE_VERSION, Set.of(COLUMN_PAGE_ID, COLUMN_VERSION_NUMBER))) {
+            return;
+        }
+        int pages = renumberDuplicateVersions(connection);
+        execute(connection, "ALTER TABLE {" + TABLE_VERSION + "} ADD CONSTRAINT "
+            + CMSPageVersion.UNIQUE_VERSION_NUMBER + " UNIQUE (" + COLUMN_PAGE_ID + ", " + COLUMN_VERSION_NUMBER
+            + ")");
+        applied.add("Added unique constraint on page and version number, renumbered versions of " + pages
+            + " pages with duplicate version numbers");
+    }
+
+    /**
+     * Computes missing content hashes, points translations with equal contents to the oldest one and removes
+     * contents no longer referenced by any translation or delta. Removing a delta can release its base, so the
+     * removal is repeated until no content is removed.
+     */
+    private void deduplicateContents(Connection connection, List<String> applied) throws SQLException {
+        int hashed = hashContents(connection);
+        if (hashed > 0) {
+            applied.add("Computed hashes of " + hashed + " contents");
+        }
+        int merged = executeUpdate(connection, "UPDATE {" + TABLE_TRANSLATION + "} t SET content_id ="
+            + " (SELECT MIN(d.id) FROM {" + TABLE_CONTENT + "} d JOIN {" + TABLE_CONTENT + "} c"
+            + " ON d.content_hash = c.content_hash WHERE c.id = t.content_id)"
+            + " WHERE t.content_id IN (SELECT c.id FROM {" + TABLE_CONTENT + "} c WHERE EXISTS"
+            + " (SELECT 1 FROM {" + TABLE_CONTENT + "} d WHERE d.content_hash = c.content_hash"
+            + " AND d.id < c.id))");
+        if (merged > 0) {
+            applied.add("Pointed " + merged + " translations to shared contents");
+        }
+        int removed = 0;
+        int pass;
+        do {
+            pass = executeUpdate(connection, "DELETE FROM {" + TABLE_CONTENT + "} c WHERE NOT EXISTS"
+                + " (SELECT 1 FROM {" + TABLE_TRANSLATION + "} t WHERE t.content_id = c.id)"
+                + " AND NOT EXISTS (SELECT 1 FROM {" + TABLE_CONTENT + "} d WHERE d.base_id = c.id)");
+            removed += pass;
+        } while (pass > 0);
+        if (removed > 0) {
+            applied.add("Removed " + removed + " unreferenced contents");
+        }
+    }
+
+    /**
+     * Moves the ID sequence of a table past the highest ID, if IDs handed out by the pooled optimizer could collide
+     * with existing rows. This is the case for tables whose IDs were generated by identity columns before.
+     * On databases whose sequences cannot be read from the catalog, checking the sequence consumes one block of IDs.
+     *
+     * @return true if the sequence was moved
+     */
+    private boolean advanceSequence(Connection connection, String table) throws SQLException {
+        String sequence = table + SEQUENCE_SUFFIX;
+        boolean behind;
+        try {
+            behind = isSequenceBehind(connection, table, true);
+        } catch (SQLException e) {
+            throw new SQLException("Sequence " + sequence + " does not exist, "
+                + "update the schema (MCR.JPA.Hbm2ddlAuto=update) before migrating", e);
+        }
+        if (!behind) {
+            return false;
+        }
+        long maxId = queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM {" + table + "}");
+        execute(connection, "ALTER SEQUENCE {" + sequence + "} RESTART WITH " + (maxId + ID_ALLOCATION_SIZE + 1));
+        return true;
+    }
+
+    /**
+     * Returns whether IDs handed out by the pooled optimizer from the next value of the sequence of a table could
+     * collide with existing rows.
+     *
+     * @param consume whether the next value may be fetched if the database provides no way to read it from the
+     *                catalog; otherwise such sequences are reported as not behind
+     * @throws SQLException if the sequence does not exist
+     */
+    private boolean isSequenceBehind(Connection connection, String table, boolean consume) throws SQLException {
+        String sequence = table + SEQUENCE_SUFFIX;
+        OptionalLong nextValue = peekSequence(connection, sequence);
+        if (nextValue.isEmpty() && !consume) {
+            LOGGER.debug("Cannot read sequence {} without consuming IDs, skipping the check", sequence);
+            return false;
+        }
+        long value = nextValue.isPresent() ? nextValue.getAsLong() : queryLong(connection,
+            dialect.getSequenceSupport().getSequenceNextValString(resolveTables("{" + sequence + "}")));
+        long maxId = queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM {" + table + "}");
+        // the pooled optimizer starts with the first value of a new sequence, later it hands out the IDs up to and
+        // including the value
+        long firstId = value <= ID_ALLOCATION_SIZE ? value : value - ID_ALLOCATION_SIZE + 1;
+        return firstId <= maxId;
+    }
+
+    /**
+     * Returns the value the next call of <code>nextval</code> would return, without consuming it: read from the
+     * sequence itself on PostgreSQL and from the information schema on H2. On other databases only the existence of
+     * the sequence is checked with the JDBC metadata.
+     *
+     * @return the next value, or empty if it cannot be read on this database
+     * @throws SQLException if the sequence does not exist
+     */
+    private OptionalLong peekSequence(Connection connection, String sequence) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String product = metaData.getDatabaseProductName().toLowerCase(Locale.ROOT);
+        if (product.contains("postgres")) {
+            try (Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery(resolveTables("SELECT last_value, is_called FROM {"
+                    + sequence + "}"))) {
+                result.next();
+                long lastValue = result.getLong(1);
+                return OptionalLong.of(result.getBoolean(2) ? lastValue + ID_ALLOCATION_SIZE : lastValue);
+            }
+        }
+        if (product.contains("h2")) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT BASE_VALUE"
+                + " FROM INFORMATION_SCHEMA.SEQUENCES"
+                + " WHERE SEQUENCE_SCHEMA = COALESCE(?, CURRENT_SCHEMA) AND SEQUENCE_NAME = ?")) {
+                statement.setString(1, toStoredCase(metaData, schema));
+                statement.setString(2, toStoredCase(metaData, sequence));
+                try (ResultSet result = statement.executeQuery()) {
+                    if (!result.next()) {
+                        throw new SQLException("Sequence " + sequence + " does not exist");
+                    }
+                    return OptionalLong.of(result.getLong(1));
+                }
+            }
+        }
+        try (ResultSet sequences = metaData.getTables(null, toStoredCase(metaData, schema),
+            toStoredCase(metaData, sequence), new String[] { "SEQUENCE" })) {
+            if (!sequences.next()) {
+                throw new SQLException("Sequence " + sequence + " does not exist");
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Computes the missing content hashes. Only full contents can lack a hash, deltas are always stored with the
+     * hash of their full text.
+     *
+     * @return the number of updated contents
+     */
+    private int hashContents(Connection connection) throws SQLException {
+        int count = 0;
+        try (Statement select = connection.createStatement();
+            PreparedStatement update = connection.prepareStatement(resolveTables(
+                "UPDATE {" + TABLE_CONTENT + "} SET content_hash = ? WHERE id = ?"))) {
+            select.setFetchSize(HASH_BATCH_SIZE);
+            try (ResultSet contents = select.executeQuery(resolveTables("SELECT id, content FROM {"
+                + TABLE_CONTENT + "} WHERE content_hash IS NULL AND base_id IS NULL"))) {
+                while (contents.next()) {
+                    update.setString(1, CMSTranslationContent.hash(
+                        CMSCompressedTextConverter.decompress(contents.getString(2))));
+                    update.setLong(2, contents.getLong(1));
+                    update.addBatch();
+                    count++;
+                    if (count % HASH_BATCH_SIZE == 0) {
+                        update.executeBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+        }
+        return count;
+    }
+
+    private int executeUpdate(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            String resolvedSql = resolveTables(sql);
+            LOGGER.info("Executing: {}", resolvedSql);
+            return statement.executeUpdate(resolvedSql);
+        }
+    }
+
+    private long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+            ResultSet result = statement.executeQuery(resolveTables(sql))) {
+            if (!result.next()) {
+                throw new SQLException("No result for " + sql);
+            }
+            return result.getLong(1);
+        }
+    }
+
+    /**
+     * Renumbers the versions of all pages that have duplicate version numbers consecutively, ordered by version
+     * number and ID. The head columns of these pages are reset and recomputed on the next access.
+     *
+     * @return the number of renumbered pages
+     */
+    private int renumberDuplicateVersions(Connection connection) throws SQLException {
+        List<Long> pageIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+            ResultSet result = statement.executeQuery(resolveTables("SELECT DISTINCT page_id FROM"
+                + " (SELECT page_id FROM {" + TABLE_VERSION + "} GROUP BY page_id, version_number"
+                + " HAVING COUNT(*) > 1) duplicates"))) {
+            while (result.next()) {
+                pageIds.add(result.getLong(1));
+            }
+        }
+        for (Long pageId : pageIds) {
+            LOGGER.warn("Renumbering versions of page {}, it has duplicate version numbers", pageId);
+            List<Long> versionIds = new ArrayList<>();
+            try (PreparedStatement select = connection.prepareStatement(resolveTables("SELECT id FROM {"
+                + TABLE_VERSION + "} WHERE page_id = ? ORDER BY version_number, id"))) {
+                select.setLong(1, pageId);
+                try (ResultSet result = select.executeQuery()) {
+                    while (result.next()) {
+                        versionIds.add(result.getLong(1));
+                    }
+                }
+            }
+            try (PreparedStatement update = connection.prepareStatement(resolveTables(
+                "UPDATE {" + TABLE_VERSION + "} SET version_number = ? WHERE id = ?"))) {
+                for (int i = 0; i < versionIds.size(); i++) {
+                    update.setInt(1, i + 1);
+                    update.setLong(2, versionIds.get(i));
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+            try (PreparedStatement reset = connection.prepareStatement(resolveTables("UPDATE {" + TABLE_PAGE
+                + "} SET latest_version_number = NULL, latest_non_draft_status = NULL,"
+                + " latest_published_version_id = NULL WHERE id = ?"))) {
+                reset.setLong(1, pageId);
+                reset.executeUpdate();
+            }
+        }
+        return pageIds.size();
+    }
+
+    private void execute(Connection connection, String... statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                String resolvedSql = resolveTables(sql);
+                LOGGER.info("Executing: {}", resolvedSql);
+                statement.execute(resolvedSql);
+            }
+        }
+    }
+
+    private boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns = metaData.getColumns(null, toStoredCase(metaData, schema),
+            toStoredCase(metaData, table), toStoredCase(metaData, column))) {
+            return columns.next();
+        }
+    }
+
+    /**
+     * Converts an unquoted identifier to the case the database stores it in, for lookups in the metadata.
+     *
+     * @param identifier the identifier, may be <code>null</code>
+     */
+    private static String toStoredCase(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (identifier == null) {
+            return null;
+        }
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase(Locale.ROOT);
+        }
+        return identifier;
+    }
+
+    /**
+     * Returns the indexes declared on the entities and, on PostgreSQL, an index for slug prefix queries. The unique
+     * index on the slug cannot serve <code>LIKE</code> queries unless the database uses the C collation.
+     */
+    private List<IndexDefinition> indexes(Connection connection) throws SQLException {
+        List<IndexDefinition> indexes = new ArrayList<>(List.of(
+            new IndexDefinition(CMSPage.INDEX_UPDATED, TABLE_PAGE, "updated_at, id"),
+            new IndexDefinition(CMSPageVersion.INDEX_STATUS, TABLE_VERSION,
+                "page_id, status, version_number"),
+            new IndexDefinition(CMSPageVersionTranslation.INDEX_LANGUAGE, TABLE_TRANSLATION,
+                "page_version_id, language_id"),
+            new IndexDefinition(CMSTranslationContent.INDEX_HASH, TABLE_CONTENT, "content_hash"),
+            new IndexDefinition(CMSTranslationContent.INDEX_BASE, TABLE_CONTENT, "base_id")));
+        if (connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres")) {
+            indexes.add(new IndexDefinition(INDEX_SLUG_PATTERN, TABLE_PAGE, "slug varchar_pattern_ops"));
+        }
+        return indexes;
+    }
+
+    private boolean indexExists(Connection connection, String table, String name) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(null, toStoredCase(metaData, schema),
+            toStoredCase(metaData, table), false, true)) {
+            while (indexes.next()) {
+                if (name.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean uniqueIndexExists(Connection connection, String table, Set<String> columns)
+        throws SQLException {
+        Map<String, Set<String>> indexColumns = new HashMap<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(null, toStoredCase(metaData, schema),
+            toStoredCase(metaData, table), true, false)) {
+            while (indexes.next()) {
+                String indexName = indexes.getString("INDEX_NAME");
+                String columnName = indexes.getString("COLUMN_NAME");
+                if (indexName != null && columnName != null) {
+                    indexColumns.computeIfAbsent(indexName, name -> new HashSet<>())
+                        .add(columnName.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return indexColumns.containsValue(columns);
+    }
+
+    private String resolveTables(String sql) {
+        Matcher matcher = TABLE_PLACEHOLDER.matcher(sql);
+        StringBuilder resolved = new StringBuilder();
+        while (matcher.find()) {
+            String table = schema == null ? matcher.group(1) : schema + "." + matcher.group(1);
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(table));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    /**
+     * The result of a batch of {@link #recompressContents(long, int)}.
+     *
+     * @param read    the number of read contents
+     * @param updated the number of rewritten contents
+     * @param lastId  the ID to continue after, <code>null</code> if all contents were processed
+     */
+    public record RecompressionBatch(int read, int updated, Long lastId) {
+    }
+
+    /**
+     * An index to be created if missing.
+     *
+     * @param name    the index name
+     * @param table   the table name
+     * @param columns the column list, including operator classes
+     */
+    private record IndexDefinition(String name, String table, String columns) {
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.config.MCRConfiguration2;
+
+import de.gbv.reposis.cms.model.CMSPageStatus;
+
+/**
+ * Process-wide full-text index over the translations of the highest published version of every page.
+ * Each language has its own inverted index over the title and the text content of the translations. Matches are
+ * ranked with BM25, title terms count {@value #TITLE_BOOST} times.
+ * <p>
+ * The index is built from the database on the first search. The first search after
+ * <code>MCR.CMS.Search.MaxAge</code> seconds schedules a rebuild in a background thread, which bounds the staleness
+ * for changes made by other processes. Searches during a rebuild use the previous index. {@link CMSPageService}
+ * updates the documents of a page after every committed write that changes its published version or visibility;
+ * updates during a rebuild are applied to the rebuilt index as well.
+ * <p>
+ * Terms are lower cased words with diacritics removed. Removed documents leave gaps in the posting lists, a language
+ * index is rebuilt from the stored documents once the gaps outnumber the documents.
+ */
+public final class CMSSearchIndex {
+
+    /**
+     * Property key for the number of seconds after which the index is rebuilt.
+     */
+    public static final String PROPERTY_MAX_AGE = "MCR.CMS.Search.MaxAge";
+
+    /**
+     * Default maximum age: 1 hour.
+     */
+    public static final long DEFAULT_MAX_AGE = 3600;
+
+    private static final int TITLE_BOOST = 3;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final int SNIPPET_LENGTH = 200;
+
+    private static final int MIN_GAPS_FOR_COMPACTION = 1000;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}][\\p{L}\\p{N}\\p{M}]*");
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SCRIPT_OR_STYLE = Pattern.compile("<(script|style)\\b.*?</\\1\\s*>",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern TAG = Pattern.compile("<[^>]*>?");
+
+    private static final Pattern ENTITY = Pattern.compile("&(#[0-9]{1,7}|#[xX][0-9a-fA-F]{1,6}|[a-zA-Z]+);");
+
+    private static final Map<String, String> NAMED_ENTITIES = Map.of("amp", "&", "lt", "<", "gt", ">",
+        "quot", "\"", "apos", "'", "nbsp", " ", "shy", "");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final CMSSearchIndex INSTANCE = new CMSSearchIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private final Duration maxAge;
+
+    private Map<String, LanguageIndex> languages;
+
+    private Instant builtAt;
+
+    private List<Consumer<Map<String, LanguageIndex>>> pendingUpdates;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CMS search index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private CMSSearchIndex() {
+        this(Duration.ofSeconds(MCRConfiguration2.getLong(PROPERTY_MAX_AGE).orElse(DEFAULT_MAX_AGE)));
+    }
+
+    /**
+     * Creates an index with the given maximum age, for tests.
+     */
+    CMSSearchIndex(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public static CMSSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns whether the index is built or being built, and therefore needs to be updated on writes.
+     */
+    public boolean isActive() {
+        lock.readLock().lock();
+        try {
+            return languages != null || pendingUpdates != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the index if it was not built yet, waiting for a build running in another thread. If the index is older
+     * than the maximum age, a rebuild is scheduled in the background and this method returns immediately, so the
+     * current index is used until the rebuilt one replaces it.
+     *
+     * @param loader           loads all documents from the database in the current thread
+     * @param backgroundLoader loads all documents from the database in the background thread, in a session and
+     *                         transaction of its own
+     */
+    public void ensureBuilt(Supplier<List<Document>> loader, Supplier<List<Document>> backgroundLoader) {
+        lock.readLock().lock();
+        boolean built;
+        try {
+            built = languages != null;
+            if (built && builtAt.plus(maxAge).isAfter(Instant.now())) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (built) {
+            scheduleRebuild(backgroundLoader);
+            return;
+        }
+        buildLock.lock();
+        try {
+            lock.readLock().lock();
+            try {
+                built = languages != null;
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (!built) {
+                rebuild(loader);
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index in the background thread, unless a rebuild is scheduled or running already.
+     */
+    private void scheduleRebuild(Supplier<List<Document>> loader) {
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild(loader);
+            } catch (RuntimeException e) {
+                LOGGER.error("Could not rebuild CMS search index, using the previous index", e);
+            } finally {
+                rebuildScheduled.set(false);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the index from all documents. Updates that arrive while the documents are loaded are applied to the
+     * new index before it replaces the current one.
+     *
+     * @param loader loads all documents from the database
+     */
+    public void rebuild(Supplier<List<Document>> loader) {
+        buildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long start = System.nanoTime();
+            Map<String, LanguageIndex> rebuilt = new HashMap<>();
+            List<Document> documents;
+            try {
+                documents = loader.get();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingUpdates = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            documents.forEach(document -> add(rebuilt, document));
+            lock.writeLock().lock();
+            try {
+                pendingUpdates.forEach(update -> update.accept(rebuilt));
+                pendingUpdates = null;
+                languages = rebuilt;
+                builtAt = Instant.now();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            LOGGER.info("Built CMS search index of {} translations in {} ms", documents::size,
+                () -> (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the documents of a page. Does nothing if the index is neither built nor being built.
+     *
+     * @param documents the translations of the highest published version, empty if the page has none
+     */
+    public void updatePage(Long pageId, List<Document> documents) {
+        apply(index -> {
+            index.values().forEach(languageIndex -> languageIndex.remove(pageId));
+            documents.forEach(document -> add(index, document));
+        });
+    }
+
+    /**
+     * Removes the documents of a page. Does nothing if the index is neither built nor being built.
+     */
+    public void removePage(Long pageId) {
+        apply(index -> index.values().forEach(languageIndex -> languageIndex.remove(pageId)));
+    }
+
+    /**
+     * Returns all documents of a language matching all terms of the query, with the highest score first.
+     * Documents are not filtered by visibility.
+     */
+    public List<Match> search(String languageCode, String query) {
+        List<String> terms = List.copyOf(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            LanguageIndex languageIndex = languages == null ? null : languages.get(languageCode);
+            return languageIndex == null ? List.of() : languageIndex.search(terms);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed translations.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return languages == null ? 0 : languages.values().stream().mapToInt(LanguageIndex::size).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all documents, the index is built again on the next search.
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            languages = null;
+            builtAt = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Map<String, LanguageIndex>> update) {
+        lock.writeLock().lock();
+        try {
+            if (languages != null) {
+                update.accept(languages);
+            }
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(Map<String, LanguageIndex> index, Document document) {
+        index.computeIfAbsent(document.language(), language -> new LanguageIndex()).add(document);
+    }
+
+    /**
+     * Converts HTML to plain text: removes scripts, styles and tags, decodes character references and collapses
+     * whitespace.
+     */
+    public static String toPlainText(String html) {
+        if (html == null) {
+            return "";
+        }
+        String text = TAG.matcher(SCRIPT_OR_STYLE.matcher(html).replaceAll(" ")).replaceAll(" ");
+        Matcher entities = ENTITY.matcher(text);
+        StringBuilder decoded = new StringBuilder(text.length());
+        while (entities.find()) {
+            entities.appendReplacement(decoded, Matcher.quoteReplacement(decodeEntity(entities.group(1))));
+        }
+        entities.appendTail(decoded);
+        return WHITESPACE.matcher(decoded).replaceAll(" ").trim();
+    }
+
+    private static String decodeEntity(String name) {
+        if (name.charAt(0) != '#') {
+            return NAMED_ENTITIES.getOrDefault(name.toLowerCase(Locale.ROOT), "&" + name + ";");
+        }
+        boolean hex = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X');
+        int codePoint = Integer.parseInt(name.substring(hex ? 2 : 1), hex ? 16 : 10);
+        return Character.isValidCodePoint(codePoint) ? Character.toString(codePoint) : "&" + name + ";";
+    }
+
+    /**
+     * Splits a text into terms.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        Matcher words = WORD.matcher(text);
+        while (words.find()) {
+            terms.add(normalize(words.group()));
+        }
+        return terms;
+    }
+
+    private static String normalize(String word) {
+        String lowerCase = word.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (lowerCase.charAt(i) > 0x7F) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lowerCase, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lowerCase;
+    }
+
+    /**
+     * Returns an excerpt of a text around the first occurrence of one of the query terms, or the start of the text
+     * if no term occurs in it.
+     */
+    public static String createSnippet(String text, String query) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        int position = 0;
+        Matcher words = WORD.matcher(text);
+        while (words.find()) {
+            if (terms.contains(normalize(words.group()))) {
+                position = words.start();
+                break;
+            }
+        }
+        int start = Math.max(0, position - SNIPPET_LENGTH / 3);
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        if (start > 0) {
+            int space = text.indexOf(' ', start);
+            start = space < 0 || space >= position ? start : space + 1;
+        }
+        if (end < text.length()) {
+            int space = text.lastIndexOf(' ', end);
+            end = space <= position ? end : space;
+        }
+        return (start > 0 ? "…" : "") + text.substring(start, end) + (end < text.length() ? "…" : "");
+    }
+
+    /**
+     * A translation of the highest published version of a page.
+     *
+     * @param pageId             the ID of the page
+     * @param slug               the slug of the page
+     * @param language           the language code
+     * @param versionNumber      the number of the published version
+     * @param lastNonDraftStatus the status of the last non-draft version, needed for the visibility check
+     * @param title              the title
+     * @param text               the content as plain text, see {@link #toPlainText(String)}
+     */
+    public record Document(Long pageId, String slug, String language, Integer versionNumber,
+        CMSPageStatus lastNonDraftStatus, String title, String text) {
+    }
+
+    /**
+     * A document matching a query.
+     *
+     * @param document the document
+     * @param score    the BM25 score
+     */
+    public record Match(Document document, double score) {
+    }
+
+    /**
+     * Inverted index of one language. Documents get ascending numbers, so posting lists stay sorted when
+     * documents are appended.
+     */
+    private static final class LanguageIndex {
+
+        private List<Document> documents = new ArrayList<>();
+
+        private int[] lengths = new int[16];
+
+        private Map<String, Postings> postings = new HashMap<>();
+
+        private Map<Long, Integer> documentsByPage = new HashMap<>();
+
+        private long totalLength;
+
+        private int gaps;
+
+        void add(Document document) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            List<String> titleTerms = tokenize(document.title());
+            List<String> textTerms = tokenize(document.text());
+            titleTerms.forEach(term -> frequencies.merge(term, TITLE_BOOST, Integer::sum));
+            textTerms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            int number = documents.size();
+            int length = TITLE_BOOST * titleTerms.size() + textTerms.size();
+            documents.add(document);
+            if (number == lengths.length) {
+                lengths = Arrays.copyOf(lengths, number * 2);
+            }
+            lengths[number] = length;
+            totalLength += length;
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new Postings())
+                .add(number, frequency));
+            documentsByPage.put(document.pageId(), number);
+        }
+
+        void remove(Long pageId) {
+            Integer number = documentsByPage.remove(pageId);
+            if (number == null) {
+                return;
+            }
+            documents.set(number, null);
+            totalLength -= lengths[number];
+            gaps++;
+            if (gaps > MIN_GAPS_FOR_COMPACTION && gaps > documentsByPage.size()) {
+                compact();
+            }
+        }
+
+        int size() {
+            return documentsByPage.size();
+        }
+
+        List<Match> search(List<String> terms) {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Postings::size));
+            int documentCount = size();
+            double averageLength = documentCount == 0 ? 1 : Math.max(1, (double) totalLength / documentCount);
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                // posting lists still count removed documents
+                int frequency = Math.min(lists.get(i).size(), documentCount);
+                idf[i] = Math.log(1 + (documentCount - frequency + 0.5) / (frequency + 0.5));
+            }
+            List<Match> matches = new ArrayList<>();
+            Postings shortest = lists.getFirst();
+            for (int p = 0; p < shortest.size(); p++) {
+                int number = shortest.documents[p];
+                Document document = documents.get(number);
+                if (document == null) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * lengths[number] / averageLength);
+                double score = idf[0] * bm25(shortest.frequencies[p], norm);
+                boolean matchesAll = true;
+                for (int i = 1; i < lists.size() && matchesAll; i++) {
+                    int frequency = lists.get(i).frequency(number);
+                    matchesAll = frequency > 0;
+                    score += idf[i] * bm25(frequency, norm);
+                }
+                if (matchesAll) {
+                    matches.add(new Match(document, score));
+                }
+            }
+            matches.sort(Comparator.comparingDouble(Match::score).reversed()
+                .thenComparing(match -> match.document().slug()));
+            return matches;
+        }
+
+        private static double bm25(int frequency, double norm) {
+            return frequency * (K1 + 1) / (frequency + norm);
+        }
+
+        private void compact() {
+            List<Document> live = documents.stream().filter(document -> document != null).toList();
+            documents = new ArrayList<>(live.size());
+            lengths = new int[Math.max(16, live.size())];
+            postings = new HashMap<>();
+            documentsByPage = new HashMap<>();
+            totalLength = 0;
+            gaps = 0;
+            live.forEach(this::add);
+        }
+    }
+
+    /**
+     * Document numbers and term frequencies of a term, sorted by document number.
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int size;
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int frequency(int document) {
+            int index = Arrays.binarySearch(documents, 0, size, document);
+            return index < 0 ? 0 : frequencies[index];
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.mycore.common.config.MCRConfiguration2;
+
+/**
+ * Process-wide trie of all page slugs, split into segments at <code>/</code>. The slugs <code>/about</code> and
+ * <code>/about/team</code> are a node and its child, intermediate segments without a page of their own are nodes
+ * without page ID.
+ * <p>
+ * The trie is built from the database on first use and rebuilt on the next use after
+ * <code>MCR.CMS.SlugTree.MaxAge</code> seconds, which bounds the staleness for pages created or deleted by other
+ * processes. {@link CMSPageService} updates it after every committed creation, import and deletion of a page;
+ * updates during a rebuild are applied to the rebuilt trie as well.
+ */
+public final class CMSSlugTree {
+
+    /**
+     * Property key for the number of seconds after which the trie is rebuilt.
+     */
+    public static final String PROPERTY_MAX_AGE = "MCR.CMS.SlugTree.MaxAge";
+
+    /**
+     * Default maximum age: 10 minutes.
+     */
+    public static final long DEFAULT_MAX_AGE = 600;
+
+    private static final String SEPARATOR = "/";
+
+    private static final CMSSlugTree INSTANCE = new CMSSlugTree();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private final Duration maxAge;
+
+    private Node root;
+
+    private Instant builtAt;
+
+    private List<Consumer<Node>> pendingUpdates;
+
+    private CMSSlugTree() {
+        maxAge = Duration.ofSeconds(MCRConfiguration2.getLong(PROPERTY_MAX_AGE).orElse(DEFAULT_MAX_AGE));
+    }
+
+    public static CMSSlugTree getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Builds the trie if it was not built yet or is older than the maximum age.
+     *
+     * @param loader loads the ID and slug of all pages from the database
+     */
+    public void ensureBuilt(Supplier<Map<String, Long>> loader) {
+        lock.readLock().lock();
+        try {
+            if (root != null && builtAt.plus(maxAge).isAfter(Instant.now())) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        buildLock.lock();
+        try {
+            lock.readLock().lock();
+            try {
+                if (root != null && builtAt.plus(maxAge).isAfter(Instant.now())) {
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            rebuild(loader);
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    private void rebuild(Supplier<Map<String, Long>> loader) {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Node rebuilt = new Node();
+        try {
+            loader.get().forEach((slug, pageId) -> put(rebuilt, slug, pageId));
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (pendingUpdates != null) {
+                    pendingUpdates.forEach(update -> update.accept(rebuilt));
+                }
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            root = rebuilt;
+            builtAt = Instant.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a page or replaces the page ID of its slug. Does nothing if the trie is neither built nor being built.
+     */
+    public void put(String slug, Long pageId) {
+        apply(node -> put(node, slug, pageId));
+    }
+
+    /**
+     * Removes the page of a slug, and intermediate nodes left without pages. Does nothing if the trie is neither
+     * built nor being built.
+     */
+    public void remove(String slug) {
+        apply(node -> remove(node, split(slug), 0));
+    }
+
+    /**
+     * Returns the subtree below a slug, which need not have a page of its own. Children are sorted by segment.
+     *
+     * @param slug  the slug of the root of the subtree, <code>/</code> for the whole tree
+     * @param depth the number of levels of children to include
+     * @return the subtree, or empty if no slug starts with the given one followed by <code>/</code>
+     */
+    public Optional<SlugNode> getSubtree(String slug, int depth) {
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return Optional.empty();
+            }
+            if (SEPARATOR.equals(slug)) {
+                // "/" and "/about" split into ["", ""] and ["", "about"], the children of "/" are its siblings
+                Node top = root.children.get("");
+                if (top == null) {
+                    return Optional.empty();
+                }
+                Node self = top.children.get("");
+                List<SlugNode> children = depth <= 0 ? List.of() : top.children.entrySet().stream()
+                    .filter(entry -> !entry.getKey().isEmpty())
+                    .map(entry -> toSlugNode(SEPARATOR + entry.getKey(), entry.getValue(), depth - 1))
+                    .toList();
+                return Optional.of(new SlugNode(slug, self == null ? null : self.pageId, children));
+            }
+            Node node = root;
+            for (String segment : split(slug)) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(toSlugNode(slug, node, depth));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of pages in the trie.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return root == null ? 0 : root.pageCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all slugs, the trie is built again on next use.
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            builtAt = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Node> update) {
+        lock.writeLock().lock();
+        try {
+            if (root != null) {
+                update.accept(root);
+            }
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static SlugNode toSlugNode(String slug, Node node, int depth) {
+        List<SlugNode> children = depth <= 0 ? List.of() : node.children.entrySet().stream()
+            .map(entry -> toSlugNode(slug + SEPARATOR + entry.getKey(), entry.getValue(), depth - 1))
+            .toList();
+        return new SlugNode(slug, node.pageId, children);
+    }
+
+    private static void put(Node root, String slug, Long pageId) {
+        Node node = root;
+        for (String segment : split(slug)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.pageId = pageId;
+    }
+
+    private static boolean remove(Node node, String[] segments, int index) {
+        if (index == segments.length) {
+            node.pageId = null;
+        } else {
+            Node child = node.children.get(segments[index]);
+            if (child != null && remove(child, segments, index + 1)) {
+                node.children.remove(segments[index]);
+            }
+        }
+        return node.pageId == null && node.children.isEmpty();
+    }
+
+    private static String[] split(String slug) {
+        return slug.split(SEPARATOR, -1);
+    }
+
+    /**
+     * A node of a subtree.
+     *
+     * @param slug     the slug of the node
+     * @param pageId   the ID of the page with this slug, <code>null</code> for intermediate segments
+     * @param children the child nodes, sorted by segment
+     */
+    public record SlugNode(String slug, Long pageId, List<SlugNode> children) {
+    }
+
+    private static final class Node {
+
+        private final TreeMap<String, Node> children = new TreeMap<>();
+
+        private Long pageId;
+
+        int pageCount() {
+            int count = pageId == null ? 0 : 1;
+            for (Node child : children.values()) {
+                count += child.pageCount();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Token based diff of HTML texts with the linear space variant of Myers' algorithm.
+ * Texts are split into tags, words and whitespace, so edits of a page usually result in few, short edits.
+ * <p>
+ * Edits can be encoded as a compact delta that rebuilds the new text from the old one. The delta is a sequence of
+ * operations, each a type character followed by a length in characters: <code>=n;</code> copies and
+ * <code>-n;</code> skips the next <code>n</code> characters of the old text, <code>+n:text</code> inserts the
+ * <code>n</code> characters that follow the colon.
+ */
+public final class CMSTextDiff {
+
+    private static final Pattern TOKEN = Pattern.compile("<[^>]*>?|[^<\\s]+|\\s+");
+
+    private CMSTextDiff() {
+    }
+
+    /**
+     * Computes the edits that turn one text into another.
+     *
+     * @param oldText  the old text
+     * @param newText  the new text
+     * @param maxEdits the maximum number of inserted and deleted tokens
+     * @return the edits, with consecutive edits of the same type merged, or empty if the texts differ in more than
+     * <code>maxEdits</code> tokens
+     */
+    public static Optional<List<Edit>> diff(String oldText, String newText, int maxEdits) {
+        List<Edit> edits = new ArrayList<>();
+        return diff(oldText, newText, maxEdits, edits::add) ? Optional.of(edits) : Optional.empty();
+    }
+
+    /**
+     * Computes the edits that turn one text into another and passes them to the consumer in text order, as they are
+     * found. Whether the texts differ in more than <code>maxEdits</code> tokens is decided before the first edit is
+     * passed. Memory is linear in the number of tokens.
+     *
+     * @param oldText  the old text
+     * @param newText  the new text
+     * @param maxEdits the maximum number of inserted and deleted tokens
+     * @param consumer receives the edits, with consecutive edits of the same type merged
+     * @return false if the texts differ in more than <code>maxEdits</code> tokens, then no edit was passed
+     */
+    public static boolean diff(String oldText, String newText, int maxEdits, Consumer<Edit> consumer) {
+        return new Myers(tokenize(oldText), tokenize(newText), consumer).run(maxEdits);
+    }
+
+    /**
+     * Encodes edits as a delta against the old text.
+     */
+    public static String encode(List<Edit> edits) {
+        StringBuilder delta = new StringBuilder();
+        for (Edit edit : edits) {
+            switch (edit.type()) {
+                case EQUAL -> delta.append('=').append(edit.text().length()).append(';');
+                case DELETE -> delta.append('-').append(edit.text().length()).append(';');
+                case INSERT -> delta.append('+').append(edit.text().length()).append(':').append(edit.text());
+                default -> throw new IllegalArgumentException("Unknown edit type " + edit.type());
+            }
+        }
+        return delta.toString();
+    }
+
+    /**
+     * Rebuilds a text from the old text and a delta created by {@link #encode(List)}.
+     *
+     * @throws IllegalArgumentException if the delta is malformed or does not match the old text
+     */
+    public static String apply(String oldText, String delta) {
+        StringBuilder text = new StringBuilder(oldText.length());
+        int oldPosition = 0;
+        int position = 0;
+        while (position < delta.length()) {
+            char operation = delta.charAt(position);
+            int end = position + 1;
+            while (end < delta.length() && Character.isDigit(delta.charAt(end))) {
+                end++;
+            }
+            if (end == position + 1 || end == delta.length()) {
+                throw new IllegalArgumentException("Malformed delta at position " + position);
+            }
+            int length = Integer.parseInt(delta, position + 1, end, 10);
+            position = end + 1;
+            switch (operation) {
+                case '=' -> {
+                    checkLength(length, oldText.length() - oldPosition);
+                    text.append(oldText, oldPosition, oldPosition + length);
+                    oldPosition += length;
+                }
+                case '-' -> {
+                    checkLength(length, oldText.length() - oldPosition);
+                    oldPosition += length;
+                }
+                case '+' -> {
+                    checkLength(length, delta.length() - position);
+                    text.append(delta, position, position + length);
+                    position += length;
+                }
+                default -> throw new IllegalArgumentException("Unknown delta operation " + operation);
+            }
+        }
+        return text.toString();
+    }
+
+    private static void checkLength(int length, int available) {
+        if (length > available) {
+            throw new IllegalArgumentException("Delta does not match the old text");
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text);
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    /**
+     * Myers' O(ND) algorithm in linear space: the middle snake of an optimal path is found by searching from both
+     * ends at once, the parts before and after it are diffed recursively. Tokens are compared by IDs assigned per
+     * distinct token. The searches of a step keep only their frontier, so memory is linear in the number of tokens
+     * instead of quadratic in the number of edits, and edits are emitted in text order without backtracking.
+     */
+    private static final class Myers {
+
+        private final List<String> oldTokens;
+
+        private final List<String> newTokens;
+
+        private final int[] a;
+
+        private final int[] b;
+
+        private final Consumer<Edit> consumer;
+
+        private Edit.Type pendingType;
+
+        private final StringBuilder pendingText = new StringBuilder();
+
+        Myers(List<String> oldTokens, List<String> newTokens, Consumer<Edit> consumer) {
+            this.oldTokens = oldTokens;
+            this.newTokens = newTokens;
+            this.consumer = consumer;
+            Map<String, Integer> ids = new HashMap<>();
+            a = oldTokens.stream().mapToInt(token -> ids.computeIfAbsent(token, t -> ids.size())).toArray();
+            b = newTokens.stream().mapToInt(token -> ids.computeIfAbsent(token, t -> ids.size())).toArray();
+        }
+
+        /**
+         * Emits all edits, unless there are more than <code>maxEdits</code>. The first split of the middle part is
+         * searched with a limited number of steps, which decides the number of edits before anything is emitted.
+         */
+        boolean run(int maxEdits) {
+            int aHi = a.length;
+            int bHi = b.length;
+            int prefix = commonPrefix(0, aHi, 0, bHi);
+            int suffix = commonSuffix(prefix, aHi, prefix, bHi);
+            int aLo = prefix;
+            int bLo = prefix;
+            aHi -= suffix;
+            bHi -= suffix;
+            Split split = null;
+            if (aLo < aHi && bLo < bHi) {
+                int fullSteps = (aHi - aLo + bHi - bLo + 1) / 2;
+                int steps = Math.min(fullSteps, (maxEdits + 1) / 2 + 1);
+                split = bisect(aLo, aHi, bLo, bHi, steps);
+                if (split == null && steps < fullSteps || split != null && split.edits() > maxEdits) {
+                    return false;
+                }
+            }
+            if (split == null && aHi - aLo + bHi - bLo > maxEdits) {
+                return false;
+            }
+            emitRange(Edit.Type.EQUAL, oldTokens, 0, prefix);
+            diffSplit(aLo, aHi, bLo, bHi, split);
+            emitRange(Edit.Type.EQUAL, oldTokens, aHi, aHi + suffix);
+            flush();
+            return true;
+        }
+
+        private void diff(int aLo, int aHi, int bLo, int bHi) {
+            int prefix = commonPrefix(aLo, aHi, bLo, bHi);
+            emitRange(Edit.Type.EQUAL, oldTokens, aLo, aLo + prefix);
+            aLo += prefix;
+            bLo += prefix;
+            int suffix = commonSuffix(aLo, aHi, bLo, bHi);
+            aHi -= suffix;
+            bHi -= suffix;
+            Split split = aLo < aHi && bLo < bHi ? bisect(aLo, aHi, bLo, bHi, (aHi - aLo + bHi - bLo + 1) / 2) : null;
+            diffSplit(aLo, aHi, bLo, bHi, split);
+            emitRange(Edit.Type.EQUAL, oldTokens, aHi, aHi + suffix);
+        }
+
+        /**
+         * Diffs the ranges before and after the split, or replaces the old range by the new one if there is none.
+         */
+        private void diffSplit(int aLo, int aHi, int bLo, int bHi, Split split) {
+            if (split == null) {
+                emitRange(Edit.Type.DELETE, oldTokens, aLo, aHi);
+                emitRange(Edit.Type.INSERT, newTokens, bLo, bHi);
+                return;
+            }
+            diff(aLo, split.x(), bLo, split.y());
+            diff(split.x(), aHi, split.y(), bHi);
+        }
+
+        /**
+         * Searches the point where the furthest reaching paths from both ends of the ranges overlap, which lies on
+         * an optimal path. Diagonals that leave the ranges are no longer extended.
+         *
+         * @param steps the maximum number of steps of each search
+         * @return the split point with the number of edits of the optimal path, or null if the paths do not overlap
+         * within the steps, which means the ranges have no token in common if all steps were searched
+         */
+        private Split bisect(int aLo, int aHi, int bLo, int bHi, int steps) {
+            int n = aHi - aLo;
+            int m = bHi - bLo;
+            int maxD = (n + m + 1) / 2;
+            int offset = maxD;
+            int length = 2 * maxD + 2;
+            int[] forward = new int[length];
+            int[] backward = new int[length];
+            Arrays.fill(forward, -1);
+            Arrays.fill(backward, -1);
+            forward[offset + 1] = 0;
+            backward[offset + 1] = 0;
+            int delta = n - m;
+            // with an odd delta, the paths overlap during a forward step, otherwise during a backward step
+            boolean front = delta % 2 != 0;
+            int forwardStart = 0;
+            int forwardEnd = 0;
+            int backwardStart = 0;
+            int backwardEnd = 0;
+            for (int d = 0; d < steps; d++) {
+                for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+                    int x = k == -d || k != d && forward[offset + k - 1] < forward[offset + k + 1]
+                        ? forward[offset + k + 1]
+                        : forward[offset + k - 1] + 1;
+                    int y = x - k;
+                    while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                        x++;
+                        y++;
+                    }
+                    forward[offset + k] = x;
+                    if (x > n) {
+                        forwardEnd += 2;
+                    } else if (y > m) {
+                        forwardStart += 2;
+                    } else if (front) {
+                        int backwardK = offset + delta - k;
+                        if (backwardK >= 0 && backwardK < length && backward[backwardK] != -1
+                            && x >= n - backward[backwardK]) {
+                            return new Split(aLo + x, bLo + y, 2 * d - 1);
+                        }
+                    }
+                }
+                for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+                    int x = k == -d || k != d && backward[offset + k - 1] < backward[offset + k + 1]
+                        ? backward[offset + k + 1]
+                        : backward[offset + k - 1] + 1;
+                    int y = x - k;
+                    while (x < n && y < m && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+                        x++;
+                        y++;
+                    }
+                    backward[offset + k] = x;
+                    if (x > n) {
+                        backwardEnd += 2;
+                    } else if (y > m) {
+                        backwardStart += 2;
+                    } else if (!front) {
+                        int forwardK = offset + delta - k;
+                        if (forwardK >= 0 && forwardK < length && forward[forwardK] != -1) {
+                            int forwardX = forward[forwardK];
+                            int forwardY = forwardX - (forwardK - offset);
+                            if (forwardX >= n - x) {
+                                return new Split(aLo + forwardX, bLo + forwardY, 2 * d);
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        private int commonPrefix(int aLo, int aHi, int bLo, int bHi) {
+            int prefix = 0;
+            while (aLo + prefix < aHi && bLo + prefix < bHi && a[aLo + prefix] == b[bLo + prefix]) {
+                prefix++;
+            }
+            return prefix;
+        }
+
+        private int commonSuffix(int aLo, int aHi, int bLo, int bHi) {
+            int suffix = 0;
+            while (aHi - suffix > aLo && bHi - suffix > bLo && a[aHi - 1 - suffix] == b[bHi - 1 - suffix]) {
+                suffix++;
+            }
+            return suffix;
+        }
+
+        private void emitRange(Edit.Type type, List<String> tokens, int from, int to) {
+            if (from >= to) {
+                return;
+            }
+            if (pendingType != type) {
+                flush();
+                pendingType = type;
+            }
+            for (int i = from; i < to; i++) {
+                pendingText.append(tokens.get(i));
+            }
+        }
+
+        private void flush() {
+            if (pendingType != null && !pendingText.isEmpty()) {
+                consumer.accept(new Edit(pendingType, pendingText.toString()));
+            }
+            pendingText.setLength(0);
+            pendingType = null;
+        }
+    }
+
+    /**
+     * A split point of two token ranges on an optimal path.
+     *
+     * @param x     the index in the old tokens
+     * @param y     the index in the new tokens
+     * @param edits the number of inserted and deleted tokens of the optimal path through the split point
+     */
+    private record Split(int x, int y, int edits) {
+    }
+
+    /**
+     * A run of equal, deleted or inserted text.
+     *
+     * @param type the type of the edit
+     * @param text the text, for {@link Type#DELETE} the removed text of the old text
+     */
+    public record Edit(Type type, String text) {
+
+        /**
+         * Type of an edit.
+         */
+        public enum Type {
+            EQUAL, DELETE, INSERT
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mycore.common.config.MCRConfiguration2;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.dto.CMSVersionDetailDTO;
+import de.gbv.reposis.cms.model.CMSPageStatus;
+
+/**
+ * Process-wide cache of version details, keyed by version ID.
+ * Versions are immutable once persisted, so cached versions never need to be invalidated. The visibility of a page
+ * changes with new versions though, so it is cached separately per page and invalidated by {@link CMSPageService}
+ * on every write to the page. The mutable version DTOs are copied when handed out, so callers can't change the
+ * cached versions.
+ */
+public final class CMSVersionCache {
+
+    /**
+     * Property key for the maximum size of the cached versions in bytes.
+     */
+    public static final String PROPERTY_MAX_SIZE = "MCR.CMS.Cache.Version.MaxSize";
+
+    /**
+     * Property key for the number of seconds after which the cached visibility of a page is reloaded.
+     */
+    public static final String PROPERTY_PAGE_EXPIRE_AFTER_WRITE = "MCR.CMS.Cache.Version.PageExpireAfterWrite";
+
+    /**
+     * Default maximum size: 32 MB.
+     */
+    public static final long DEFAULT_MAX_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * Default expiry of page visibility: 10 minutes.
+     */
+    public static final long DEFAULT_PAGE_EXPIRE_AFTER_WRITE = 600;
+
+    private static final int MAX_PAGES = 10_000;
+
+    private static final int MAX_VERSION_IDS = 100_000;
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private static final CMSVersionCache INSTANCE = new CMSVersionCache();
+
+    private final Cache<Long, Entry> versions;
+
+    private final Cache<VersionKey, Long> versionIds;
+
+    private final Cache<Long, PageState> pages;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private CMSVersionCache() {
+        versions = CacheBuilder.newBuilder()
+            .maximumWeight(MCRConfiguration2.getLong(PROPERTY_MAX_SIZE).orElse(DEFAULT_MAX_SIZE))
+            .weigher((Long versionId, Entry entry) -> entry.weight())
+            .recordStats()
+            .build();
+        versionIds = CacheBuilder.newBuilder()
+            .maximumSize(MAX_VERSION_IDS)
+            .build();
+        pages = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PAGES)
+            .expireAfterWrite(MCRConfiguration2.getLong(PROPERTY_PAGE_EXPIRE_AFTER_WRITE)
+                .orElse(DEFAULT_PAGE_EXPIRE_AFTER_WRITE), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+    }
+
+    public static CMSVersionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached version with the given number of a page.
+     */
+    public Optional<Entry> getVersion(Long pageId, Integer versionNumber) {
+        return Optional.ofNullable(versionIds.getIfPresent(new VersionKey(pageId, versionNumber)))
+            .map(versions::getIfPresent);
+    }
+
+    /**
+     * Returns the cached version with the given ID.
+     */
+    public Optional<Entry> getVersion(Long versionId) {
+        return Optional.ofNullable(versions.getIfPresent(versionId));
+    }
+
+    /**
+     * Caches a persisted version, unless the cache was invalidated since the version was loaded: the version may
+     * have been deleted and its number reused meanwhile.
+     *
+     * @param loadedGeneration the generation fetched before the version was loaded
+     * @return the entry, also if it was not cached
+     */
+    public Entry putVersion(long loadedGeneration, Long versionId, Long pageId, CMSPageStatus status,
+        CMSVersionDetailDTO version) {
+        int weight = ENTRY_OVERHEAD;
+        if (version.getTranslations() != null) {
+            for (CMSTranslationDTO translation : version.getTranslations()) {
+                weight += weigh(translation.getTitle()) + weigh(translation.getContent());
+            }
+        }
+        Entry entry = new Entry(versionId, pageId, status, version, weight);
+        if (loadedGeneration == generation.get()) {
+            versions.put(versionId, entry);
+            versionIds.put(new VersionKey(pageId, version.getVersionNumber()), versionId);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the current invalidation generation, to be passed to {@link #putPageState(long, Long, PageState)} and
+     * {@link #putVersion(long, Long, Long, CMSPageStatus, CMSVersionDetailDTO)}.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached visibility data of a page.
+     */
+    public Optional<PageState> getPageState(Long pageId) {
+        return Optional.ofNullable(pages.getIfPresent(pageId));
+    }
+
+    /**
+     * Caches the visibility data of a page, unless the cache was invalidated since the data was loaded.
+     *
+     * @param loadedGeneration the generation fetched before the page was loaded
+     */
+    public void putPageState(long loadedGeneration, Long pageId, PageState state) {
+        if (loadedGeneration == generation.get()) {
+            pages.put(pageId, state);
+        }
+    }
+
+    /**
+     * Removes the visibility data and the version number mapping of a page.
+     * The versions themselves stay cached and remain reachable by ID.
+     */
+    public void invalidatePage(Long pageId) {
+        generation.incrementAndGet();
+        pages.invalidate(pageId);
+        versionIds.asMap().keySet().removeIf(key -> key.pageId().equals(pageId));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        pages.invalidateAll();
+        versionIds.invalidateAll();
+        versions.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return versions.stats();
+    }
+
+    public CacheStats getPageStats() {
+        return pages.stats();
+    }
+
+    public long size() {
+        return versions.size();
+    }
+
+    public long pageCount() {
+        return pages.size();
+    }
+
+    private static CMSVersionDetailDTO copy(CMSVersionDetailDTO version) {
+        CMSVersionDetailDTO copy = new CMSVersionDetailDTO();
+        copy.setVersionNumber(version.getVersionNumber());
+        copy.setStatus(version.getStatus());
+        copy.setComment(version.getComment());
+        copy.setCreatedAt(version.getCreatedAt());
+        copy.setCreatedBy(version.getCreatedBy());
+        if (version.getTranslations() != null) {
+            List<CMSTranslationDTO> translations = version.getTranslations().stream()
+                .map(t -> new CMSTranslationDTO(t.getLanguage(), t.getTitle(), t.getContent()))
+                .toList();
+            copy.setTranslations(translations);
+        }
+        return copy;
+    }
+
+    private static int weigh(String value) {
+        return value == null ? 0 : value.length() * Character.BYTES;
+    }
+
+    private record VersionKey(Long pageId, Integer versionNumber) {
+    }
+
+    /**
+     * A cached version.
+     *
+     * @param versionId the ID of the version
+     * @param pageId  the ID of the page the version belongs to
+     * @param status  the status of the version, needed for the permission check
+     * @param version the version DTO including all translations, returned as a copy
+     * @param weight  the approximate size of the entry in bytes
+     */
+    public record Entry(Long versionId, Long pageId, CMSPageStatus status, CMSVersionDetailDTO version, int weight) {
+
+        @Override
+        public CMSVersionDetailDTO version() {
+            return copy(version);
+        }
+    }
+
+    /**
+     * The data needed to check the visibility of a page.
+     *
+     * @param permissionId       the permission ID of the page
+     * @param lastNonDraftStatus the status of the last non-draft version, or <code>null</code> if the page only
+     *                           has drafts
+     */
+    public record PageState(String permissionId, CMSPageStatus lastNonDraftStatus) {
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.mcr.cronjob.MCRCronjob;
+
+/**
+ * Background job deleting drafts according to the {@link CMSVersionRetention} policy.
+ * Every chunk is deleted in its own transaction, so the job holds locks only briefly and a failure only rolls back
+ * the current chunk. The job does nothing unless <code>MCR.CMS.Retention.Job.Enabled</code> is set to true.
+ */
+public class CMSVersionCompactionCronjob extends MCRCronjob {
+
+    /**
+     * Property key to enable the job.
+     */
+    public static final String PROPERTY_ENABLED = "MCR.CMS.Retention.Job.Enabled";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    @Override
+    public void runJob() {
+        if (!MCRConfiguration2.getBoolean(PROPERTY_ENABLED).orElse(false)) {
+            LOGGER.debug("Version compaction is disabled");
+            return;
+        }
+        CMSVersionRetention retention = new CMSVersionRetention();
+        List<Long> pageIds = inTransaction(retention::findPagesToCompact);
+        long start = System.nanoTime();
+        long deleted = 0;
+        for (int i = 0; i < pageIds.size(); i++) {
+            Long pageId = pageIds.get(i);
+            int chunk;
+            do {
+                chunk = inTransaction(() -> retention.compactPage(pageId));
+                deleted += chunk;
+            } while (chunk == retention.getChunkSize());
+            int page = i + 1;
+            long deletedSoFar = deleted;
+            LOGGER.debug("Compacted page {} ({} of {}), {} drafts deleted so far", () -> pageId, () -> page,
+                pageIds::size, () -> deletedSoFar);
+        }
+        long total = deleted;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOGGER.info("Deleted {} drafts of {} pages in {} s ({} versions/s)", () -> total, pageIds::size,
+            () -> String.format(Locale.ROOT, "%.1f", seconds),
+            () -> String.format(Locale.ROOT, "%.0f", seconds > 0 ? total / seconds : total));
+    }
+
+    @Override
+    public String getDescription() {
+        return "Delete CMS draft versions according to the retention policy";
+    }
+
+    private static <T> T inTransaction(Supplier<T> work) {
+        MCRTransactionHelper.beginTransaction();
+        try {
+            T result = work.get();
+            MCRTransactionHelper.commitTransaction();
+            return result;
+        } catch (RuntimeException e) {
+            MCRTransactionHelper.rollbackTransaction();
+            throw e;
+        }
+    }
+}
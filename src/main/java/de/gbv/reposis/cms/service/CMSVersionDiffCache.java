@@ -0,0 +1,119 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.mycore.common.config.MCRConfiguration2;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDiffDTO;
+import de.gbv.reposis.cms.dto.CMSVersionDiffDTO;
+
+/**
+ * Process-wide cache of version diffs, keyed by the IDs of the compared versions.
+ * Versions are immutable once persisted, so cached diffs never need to be invalidated.
+ */
+public final class CMSVersionDiffCache {
+
+    /**
+     * Property key for the maximum size of the cached diffs in bytes.
+     */
+    public static final String PROPERTY_MAX_SIZE = "MCR.CMS.Cache.Diff.MaxSize";
+
+    /**
+     * Default maximum size: 16 MB.
+     */
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private static final int OPERATION_OVERHEAD = 32;
+
+    private static final CMSVersionDiffCache INSTANCE = new CMSVersionDiffCache();
+
+    private final Cache<Key, CMSVersionDiffDTO> diffs;
+
+    private CMSVersionDiffCache() {
+        diffs = CacheBuilder.newBuilder()
+            .maximumWeight(MCRConfiguration2.getLong(PROPERTY_MAX_SIZE).orElse(DEFAULT_MAX_SIZE))
+            .weigher((Key key, CMSVersionDiffDTO diff) -> weigh(diff))
+            .recordStats()
+            .build();
+    }
+
+    public static CMSVersionDiffCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached diff between two versions, computing it on a cache miss.
+     * Concurrent requests for the same pair compute the diff once.
+     */
+    public CMSVersionDiffDTO get(Long fromVersionId, Long toVersionId, Supplier<CMSVersionDiffDTO> loader) {
+        try {
+            return diffs.get(new Key(fromVersionId, toVersionId), loader::get);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Could not compute diff of versions " + fromVersionId + " and "
+                + toVersionId, e.getCause());
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        diffs.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return diffs.stats();
+    }
+
+    public long size() {
+        return diffs.size();
+    }
+
+    private static int weigh(CMSVersionDiffDTO diff) {
+        int weight = ENTRY_OVERHEAD;
+        for (CMSTranslationDiffDTO translation : diff.getTranslations()) {
+            weight += weigh(translation.getFromTitle()) + weigh(translation.getToTitle());
+            for (List<String> operation : translation.getOperations()) {
+                weight += OPERATION_OVERHEAD + weigh(operation.get(1));
+            }
+        }
+        return weight;
+    }
+
+    private static int weigh(String value) {
+        return value == null ? 0 : value.length() * Character.BYTES;
+    }
+
+    private record Key(Long fromVersionId, Long toVersionId) {
+    }
+}
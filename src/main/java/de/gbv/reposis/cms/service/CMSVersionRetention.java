@@ -0,0 +1,121 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.config.MCRConfiguration2;
+
+import de.gbv.reposis.cms.model.CMSPageStatus;
+
+/**
+ * Retention policy for draft versions.
+ * Published and archived versions are always kept. Of the drafts of a page, the newest
+ * <code>MCR.CMS.Retention.Drafts.KeepLast</code> are kept, as well as all drafts created within the last
+ * <code>MCR.CMS.Retention.Drafts.KeepDays</code> days. All other drafts are deleted in chunks of
+ * <code>MCR.CMS.Retention.ChunkSize</code> versions, each in the transaction of the caller.
+ */
+public class CMSVersionRetention {
+
+    /**
+     * Property key for the number of newest drafts per page that are kept.
+     */
+    public static final String PROPERTY_KEEP_LAST = "MCR.CMS.Retention.Drafts.KeepLast";
+
+    /**
+     * Property key for the number of days during which drafts are kept.
+     */
+    public static final String PROPERTY_KEEP_DAYS = "MCR.CMS.Retention.Drafts.KeepDays";
+
+    /**
+     * Property key for the maximum number of versions deleted per chunk.
+     */
+    public static final String PROPERTY_CHUNK_SIZE = "MCR.CMS.Retention.ChunkSize";
+
+    /**
+     * Default number of kept drafts.
+     */
+    public static final int DEFAULT_KEEP_LAST = 20;
+
+    /**
+     * Default number of days during which drafts are kept.
+     */
+    public static final int DEFAULT_KEEP_DAYS = 30;
+
+    /**
+     * Default chunk size.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final int keepLast;
+
+    private final int keepDays;
+
+    private final int chunkSize;
+
+    private final CMSPageService pageService = new CMSPageService();
+
+    public CMSVersionRetention() {
+        this(MCRConfiguration2.getInt(PROPERTY_KEEP_LAST).orElse(DEFAULT_KEEP_LAST),
+            MCRConfiguration2.getInt(PROPERTY_KEEP_DAYS).orElse(DEFAULT_KEEP_DAYS),
+            MCRConfiguration2.getInt(PROPERTY_CHUNK_SIZE).orElse(DEFAULT_CHUNK_SIZE));
+    }
+
+    /**
+     * Creates a retention policy with the given settings.
+     *
+     * @param keepLast  the number of newest drafts per page to keep, values below 1 are raised to 1
+     * @param keepDays  the number of days during which drafts are kept, 0 to ignore the age
+     * @param chunkSize the maximum number of versions deleted by {@link #compactPage(Long)}
+     */
+    public CMSVersionRetention(int keepLast, int keepDays, int chunkSize) {
+        this.keepLast = Math.max(keepLast, 1);
+        this.keepDays = Math.max(keepDays, 0);
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * Returns the IDs of the pages with more drafts than the number of kept drafts, ordered by ID.
+     * Whether their drafts are old enough to be deleted is checked by {@link #compactPage(Long)}.
+     */
+    public List<Long> findPagesToCompact() {
+        return MCREntityManagerProvider.getCurrentEntityManager().createQuery("SELECT v.page.id FROM CMSPageVersion v"
+            + " WHERE v.status = :draft GROUP BY v.page.id HAVING COUNT(v) > :keepLast ORDER BY v.page.id", Long.class)
+            .setParameter("draft", CMSPageStatus.DRAFT)
+            .setParameter("keepLast", (long) keepLast)
+            .getResultList();
+    }
+
+    /**
+     * Deletes one chunk of drafts of a page that are not retained, in the current transaction.
+     *
+     * @return the number of deleted drafts; if it equals the chunk size, more drafts may be left to delete
+     */
+    public int compactPage(Long pageId) {
+        Instant createdBefore = Instant.now().minus(keepDays, ChronoUnit.DAYS);
+        return pageService.deleteOldDrafts(pageId, keepLast, createdBefore, chunkSize);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CMSCompressedTextConverterTest {
+
+    private static final String TEXT = "<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit.</p>\n".repeat(40);
+
+    private final CMSCompressedTextConverter enabled = new CMSCompressedTextConverter(true, 100);
+
+    private final CMSCompressedTextConverter disabled = new CMSCompressedTextConverter(false, 100);
+
+    @Test
+    public void compressesLongTexts() {
+        String stored = enabled.convertToDatabaseColumn(TEXT);
+
+        assertTrue(stored.startsWith("\u0001deflate:"));
+        assertTrue(stored.length() < TEXT.length());
+        assertEquals(TEXT, enabled.convertToEntityAttribute(stored));
+        assertEquals("compressed values must stay readable after disabling", TEXT,
+            disabled.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    public void keepsTextsBelowMinSize() {
+        String text = TEXT.substring(0, 99);
+
+        assertEquals(text, enabled.convertToDatabaseColumn(text));
+        assertEquals(text, enabled.convertToEntityAttribute(text));
+    }
+
+    @Test
+    public void keepsTextsIfDisabled() {
+        assertEquals(TEXT, disabled.convertToDatabaseColumn(TEXT));
+    }
+
+    @Test
+    public void readsLegacyValuesWithoutMarker() {
+        assertEquals("<p>Alt</p>", enabled.convertToEntityAttribute("<p>Alt</p>"));
+        assertEquals("", enabled.convertToEntityAttribute(""));
+        assertEquals("\u0001other", enabled.convertToEntityAttribute("\u0001other"));
+        assertNull(enabled.convertToEntityAttribute(null));
+        assertNull(enabled.convertToDatabaseColumn(null));
+    }
+
+    @Test
+    public void escapesTextsStartingWithMarker() {
+        for (String text : new String[] { "\u0001", "\u0001deflate:eJwDAAAAAAE=", "\u0001plain:text" }) {
+            for (CMSCompressedTextConverter converter : new CMSCompressedTextConverter[] { enabled, disabled }) {
+                String stored = converter.convertToDatabaseColumn(text);
+
+                assertEquals("\u0001plain:" + text, stored);
+                assertEquals(text, converter.convertToEntityAttribute(stored));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsCorruptValues() {
+        enabled.convertToEntityAttribute("\u0001deflate:bm90IGRlZmxhdGVk");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsTruncatedValues() {
+        String stored = enabled.convertToDatabaseColumn(TEXT);
+        enabled.convertToEntityAttribute(stored.substring(0, stored.length() / 2));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+import de.gbv.reposis.cms.model.CMSTranslationContent;
+
+public class CMSContentStoreTest extends MCRTestCase {
+
+    private static final String TEXT = "<p>" + "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(10)
+        + "</p>";
+
+    private final CMSContentStore store = new CMSContentStore(3, 500, 1024 * 1024);
+
+    @Test
+    public void storesSmallChangeAsDelta() {
+        CMSTranslationContent base = new CMSTranslationContent(TEXT);
+        String text = TEXT.replaceFirst("dolor", "dolores");
+        CMSTranslationContent content = new CMSTranslationContent(text);
+
+        store.encode(content, base);
+
+        assertSame(base, content.getBase());
+        assertEquals(1, content.getDeltaDepth());
+        assertNotEquals(text, content.getStoredContent());
+        assertEquals(CMSTranslationContent.hash(text), content.getHash());
+        assertEquals(text, store.getText(content));
+    }
+
+    @Test
+    public void storesFullCopyAtSnapshotInterval() {
+        CMSTranslationContent first = new CMSTranslationContent(TEXT);
+        CMSTranslationContent second = encode(TEXT.replaceFirst("Lorem", "Lorem2"), first);
+        CMSTranslationContent third = encode(TEXT.replaceFirst("Lorem", "Lorem3"), second);
+        String text = TEXT.replaceFirst("Lorem", "Lorem4");
+        CMSTranslationContent fourth = encode(text, third);
+
+        assertEquals(1, second.getDeltaDepth());
+        assertEquals(2, third.getDeltaDepth());
+        assertNull(fourth.getBase());
+        assertEquals(0, fourth.getDeltaDepth());
+        assertEquals(text, fourth.getStoredContent());
+        assertEquals(TEXT.replaceFirst("Lorem", "Lorem3"), store.getText(third));
+    }
+
+    @Test
+    public void storesFullCopyIfDeltaIsLarge() {
+        CMSTranslationContent base = new CMSTranslationContent(TEXT);
+        String text = "<p>Ein völlig anderer Text.</p>";
+        CMSTranslationContent content = encode(text, base);
+
+        assertNull(content.getBase());
+        assertEquals(text, content.getStoredContent());
+    }
+
+    @Test
+    public void storesFullCopyIfDisabled() {
+        CMSContentStore disabled = new CMSContentStore(0, 500, 1024 * 1024);
+        CMSTranslationContent base = new CMSTranslationContent(TEXT);
+        CMSTranslationContent content = new CMSTranslationContent(TEXT.replaceFirst("dolor", "dolores"));
+
+        disabled.encode(content, base);
+
+        assertNull(content.getBase());
+    }
+
+    @Test
+    public void cachesRebuiltTexts() {
+        CMSTranslationContent base = new CMSTranslationContent(TEXT);
+        base.setId(1L);
+        String text = TEXT.replaceFirst("dolor", "dolores");
+        CMSTranslationContent content = encode(text, base);
+        content.setId(2L);
+
+        assertEquals(text, store.getText(content));
+        assertEquals(1, store.size());
+        assertEquals(text, store.getText(content));
+        assertEquals(1, store.getStats().hitCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsDeltaNotMatchingBase() {
+        CMSTranslationContent content = new CMSTranslationContent(TEXT);
+        content.setDelta(new CMSTranslationContent("<p>Kurz</p>"), 1, "=" + TEXT.length() + ";");
+
+        store.getText(content);
+    }
+
+    private CMSTranslationContent encode(String text, CMSTranslationContent base) {
+        CMSTranslationContent content = new CMSTranslationContent(text);
+        store.encode(content, base);
+        return content;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRJPATestCase;
+
+import de.gbv.reposis.cms.dto.CMSCreateVersionDTO;
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.model.CMSPage;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Base class of tests running the CMS services against an in-memory database. The process-wide caches are cleared
+ * before every test, permissions are granted by a {@link CMSTestPermissionService}.
+ */
+public abstract class CMSJPATestCase extends MCRJPATestCase {
+
+    protected CMSTestPermissionService permissionService;
+
+    protected CMSPageService pageService;
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        testProperties.put("MCR.JPA.MappingFileNames",
+            "META-INF/mycore-base-mappings.xml,META-INF/mycore-cms-mappings.xml");
+        return testProperties;
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        CMSPublishedContentCache.getInstance().invalidateAll();
+        CMSVersionCache.getInstance().invalidateAll();
+        CMSVersionDiffCache.getInstance().invalidateAll();
+        CMSContentStore.getInstance().invalidateAll();
+        CMSPermissionCache.getInstance().invalidateAll();
+        CMSLanguageRegistry.getInstance().invalidateAll();
+        CMSSearchIndex.getInstance().invalidateAll();
+        CMSSlugTree.getInstance().invalidateAll();
+        permissionService = new CMSTestPermissionService();
+        pageService = new CMSPageService(permissionService);
+    }
+
+    protected static EntityManager getCurrentEntityManager() {
+        return MCREntityManagerProvider.getCurrentEntityManager();
+    }
+
+    /**
+     * Commits the test data, clears the persistence context and the CMS caches, so the next reads hit the database.
+     */
+    protected void startNewReadTransaction() throws Exception {
+        startNewTransaction();
+        getCurrentEntityManager().clear();
+        CMSPublishedContentCache.getInstance().invalidateAll();
+        CMSVersionCache.getInstance().invalidateAll();
+        CMSContentStore.getInstance().invalidateAll();
+    }
+
+    /**
+     * Returns the statistics of the session factory, enabled and reset.
+     */
+    protected static Statistics resetStatistics() {
+        Statistics statistics = getCurrentEntityManager().unwrap(Session.class).getSessionFactory()
+            .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
+
+    /**
+     * Creates a page with one version per status, each with the given translations.
+     *
+     * @param translations the translations of every version
+     * @return the page
+     */
+    protected CMSPage createPage(String slug, List<String> statuses, CMSTranslationDTO... translations) {
+        CMSPage page = pageService.createPage(slug);
+        for (String status : statuses) {
+            pageService.createVersion(page.getId(), createVersionDTO(status, translations));
+        }
+        return page;
+    }
+
+    protected static CMSCreateVersionDTO createVersionDTO(String status, CMSTranslationDTO... translations) {
+        CMSCreateVersionDTO dto = new CMSCreateVersionDTO();
+        dto.setStatus(status);
+        dto.setTranslations(Arrays.asList(translations));
+        return dto;
+    }
+}
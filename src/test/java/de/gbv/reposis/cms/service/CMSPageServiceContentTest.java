@@ -0,0 +1,98 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.model.CMSPage;
+
+/**
+ * Checks how the contents of translations are stored: shared between identical translations, as deltas if enabled,
+ * and read back unchanged.
+ */
+public class CMSPageServiceContentTest extends CMSJPATestCase {
+
+    @Test
+    public void identicalContentsShareOneRow() throws Exception {
+        CMSTranslationDTO translation = new CMSTranslationDTO("de", "Titel", "<p>Gleicher Inhalt</p>");
+        CMSPage page = createPage("/shared", List.of("draft", "published"), translation);
+        startNewReadTransaction();
+
+        assertEquals(1L, countContentRows());
+        assertEquals(2L, getCurrentEntityManager()
+            .createQuery("SELECT COUNT(t) FROM CMSPageVersionTranslation t", Long.class).getSingleResult()
+            .longValue());
+        assertEquals("<p>Gleicher Inhalt</p>",
+            pageService.getVersion(page.getId(), 1).orElseThrow().getTranslations().getFirst().getContent());
+    }
+
+    @Test
+    public void differentContentsAreStoredSeparately() throws Exception {
+        CMSPage page = createPage("/separate", List.of("draft"), new CMSTranslationDTO("de", "Titel", "<p>A</p>"));
+        pageService.createVersion(page.getId(),
+            createVersionDTO("published", new CMSTranslationDTO("de", "Titel", "<p>B</p>")));
+        startNewReadTransaction();
+
+        assertEquals(2L, countContentRows());
+    }
+
+    @Test
+    public void keepsBasesOfRemainingDeltas() throws Exception {
+        CMSContentStore contentStore = new CMSContentStore(10, 500, 1024 * 1024);
+        CMSPageService deltaService = new CMSPageService(permissionService, contentStore);
+        CMSPage page = deltaService.createPage("/delta");
+        for (int i = 1; i <= 3; i++) {
+            deltaService.createVersion(page.getId(),
+                createVersionDTO("draft", new CMSTranslationDTO("de", "Titel", deltaText(i))));
+        }
+        startNewReadTransaction();
+        assertEquals(2L, getCurrentEntityManager()
+            .createQuery("SELECT COUNT(c) FROM CMSTranslationContent c WHERE c.base IS NOT NULL", Long.class)
+            .getSingleResult().longValue());
+
+        assertEquals(2, deltaService.deleteOldDrafts(page.getId(), 1, Instant.now().plusSeconds(60), 10));
+        startNewReadTransaction();
+        contentStore.invalidateAll();
+
+        assertEquals("bases of the remaining delta must be kept", 3L, countContentRows());
+        assertEquals(deltaText(3),
+            deltaService.getVersion(page.getId(), 3).orElseThrow().getTranslations().getFirst().getContent());
+
+        assertEquals(1, deltaService.deletePagesBySlugPrefix("/delta"));
+        startNewReadTransaction();
+
+        assertEquals(0L, countContentRows());
+    }
+
+    private static String deltaText(int version) {
+        return "<p>Version " + version + "</p>" + "<p>Lorem ipsum dolor sit amet.</p>".repeat(20);
+    }
+
+    private static long countContentRows() {
+        return getCurrentEntityManager().createQuery("SELECT COUNT(c) FROM CMSTranslationContent c", Long.class)
+            .getSingleResult();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import de.gbv.reposis.cms.dto.CMSSearchHitDTO;
+import de.gbv.reposis.cms.dto.CMSSearchResultDTO;
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+
+/**
+ * Searches pages through the {@link CMSPageService}, with the index built from the database.
+ */
+public class CMSPageServiceSearchTest extends CMSJPATestCase {
+
+    private static final List<String> PUBLISHED = List.of("published");
+
+    @Test
+    public void findsHighestPublishedVersionsOnly() throws Exception {
+        createPage("/published", PUBLISHED, translation("Bibliothek", "<p>Öffnungszeiten</p>"));
+        createPage("/draft", List.of("draft"), translation("Bibliothek", "<p>Entwurf</p>"));
+        createPage("/changed", List.of("published", "published"), translation("Archiv", "<p>Bestände</p>"));
+        startNewReadTransaction();
+
+        CMSSearchResultDTO result = pageService.search("bibliothek", "de", 0, 10);
+
+        assertEquals(1, result.getTotal().intValue());
+        assertEquals(List.of("/published"), slugs(result));
+        assertEquals(2, pageService.search("archiv", "de", 0, 10).getHits().getFirst().getVersionNumber()
+            .intValue());
+    }
+
+    @Test
+    public void hidesPagesTheUserCannotRead() throws Exception {
+        createPage("/public", PUBLISHED, translation("Bibliothek", "<p>Öffnungszeiten der Bibliothek</p>"));
+        createPage("/intern", PUBLISHED, translation("Interne Bibliothek", "<p>Nur für Mitarbeitende</p>"));
+        createPage("/other", PUBLISHED, translation("Bibliothek", "<p>Ausleihe</p>"));
+        startNewReadTransaction();
+        assertEquals(3, pageService.search("bibliothek", "de", 0, 10).getTotal().intValue());
+
+        permissionService.deny("/intern");
+        CMSSearchResultDTO result = pageService.search("bibliothek", "de", 0, 1);
+
+        assertEquals("hidden pages must not be counted", 2, result.getTotal().intValue());
+        assertEquals(1, result.getHits().size());
+        assertEquals(List.of("/other", "/public"), slugs(pageService.search("bibliothek", "de", 0, 10)).stream()
+            .sorted().toList());
+    }
+
+    private static CMSTranslationDTO translation(String title, String content) {
+        return new CMSTranslationDTO("de", title, content);
+    }
+
+    private static List<String> slugs(CMSSearchResultDTO result) {
+        return result.getHits().stream().map(CMSSearchHitDTO::getSlug).toList();
+    }
+}
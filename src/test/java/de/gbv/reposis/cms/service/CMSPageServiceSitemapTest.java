@@ -0,0 +1,110 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.model.CMSPage;
+import de.gbv.reposis.cms.service.CMSPageService.SitemapPart;
+
+/**
+ * Reads the sitemap entries through the {@link CMSPageService} in parts of page ID ranges.
+ */
+public class CMSPageServiceSitemapTest extends CMSJPATestCase {
+
+    private static final List<String> PUBLISHED = List.of("published");
+
+    private static final CMSTranslationDTO[] TRANSLATIONS = {
+        new CMSTranslationDTO("de", "Titel", "<p>Inhalt</p>"),
+        new CMSTranslationDTO("en", "Title", "<p>Content</p>") };
+
+    @Test
+    public void splitsPartsBetweenPages() throws Exception {
+        CMSPage first = createPage("/a", PUBLISHED, TRANSLATIONS);
+        CMSPage second = createPage("/b", PUBLISHED, TRANSLATIONS);
+        createPage("/c", PUBLISHED, TRANSLATIONS);
+        createPage("/draft", List.of("draft"), TRANSLATIONS);
+        startNewReadTransaction();
+        CMSCacheValidator validator = pageService.getPagesValidator();
+
+        assertEquals(List.of(new SitemapPart(0, first.getId()), new SitemapPart(first.getId(), second.getId()),
+            new SitemapPart(second.getId(), Long.MAX_VALUE)), pageService.getSitemapParts(validator, 3));
+        assertEquals(List.of(new SitemapPart(0, second.getId()), new SitemapPart(second.getId(), Long.MAX_VALUE)),
+            pageService.getSitemapParts(validator, 4));
+        assertEquals(List.of(new SitemapPart(0, Long.MAX_VALUE)), pageService.getSitemapParts(validator, 6));
+    }
+
+    @Test
+    public void readsEntriesOfPartsOnlyOnce() throws Exception {
+        createPage("/a", PUBLISHED, TRANSLATIONS);
+        createPage("/b", PUBLISHED, TRANSLATIONS);
+        createPage("/c", PUBLISHED, TRANSLATIONS);
+        startNewReadTransaction();
+
+        List<String> entries = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        for (SitemapPart part : pageService.getSitemapParts(pageService.getPagesValidator(), 3)) {
+            List<String> partEntries = readEntries(part);
+            sizes.add(partEntries.size());
+            entries.addAll(partEntries);
+        }
+
+        assertEquals(List.of(2, 2, 2), sizes);
+        assertEquals(List.of("/a de", "/a en", "/b de", "/b en", "/c de", "/c en"), entries);
+    }
+
+    @Test
+    public void computesPartsAgainAfterChanges() throws Exception {
+        CMSPage first = createPage("/a", PUBLISHED, TRANSLATIONS);
+        startNewReadTransaction();
+        assertEquals(1, pageService.getSitemapParts(pageService.getPagesValidator(), 3).size());
+
+        CMSPage second = createPage("/b", PUBLISHED, TRANSLATIONS);
+        startNewReadTransaction();
+
+        assertEquals(List.of(new SitemapPart(0, first.getId()), new SitemapPart(first.getId(), Long.MAX_VALUE)),
+            pageService.getSitemapParts(pageService.getPagesValidator(), 3));
+        assertEquals(List.of("/b de", "/b en"), readEntries(new SitemapPart(first.getId(), second.getId())));
+    }
+
+    @Test
+    public void skipsPagesTheUserCannotRead() throws Exception {
+        createPage("/a", PUBLISHED, TRANSLATIONS);
+        createPage("/intern", PUBLISHED, TRANSLATIONS);
+        startNewReadTransaction();
+
+        permissionService.deny("/intern");
+
+        assertEquals(List.of("/a de", "/a en"), readEntries(new SitemapPart(0, Long.MAX_VALUE)));
+    }
+
+    private List<String> readEntries(SitemapPart part) {
+        List<String> entries = new ArrayList<>();
+        pageService.forEachSitemapEntry(part.afterPageId(), part.untilPageId(),
+            entry -> entries.add(entry.slug() + " " + entry.language()));
+        return entries;
+    }
+}
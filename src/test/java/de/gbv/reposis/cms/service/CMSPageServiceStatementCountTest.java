@@ -0,0 +1,99 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.model.CMSPage;
+
+/**
+ * Counts the statements of the read paths that load versions with translations and contents. The count must not
+ * depend on the number of pages, versions or translations.
+ */
+public class CMSPageServiceStatementCountTest extends CMSJPATestCase {
+
+    private static final List<String> PUBLISHED = List.of("published");
+
+    @Test
+    public void versionDetailUsesConstantStatementCount() throws Exception {
+        CMSPage small = createPage("/small", PUBLISHED, translations(1));
+        CMSPage large = createPage("/large", PUBLISHED, translations(5));
+        startNewReadTransaction();
+
+        long smallCount = countStatements(() -> assertTrue(pageService.getVersion(small.getId(), 1).isPresent()));
+        long largeCount = countStatements(() -> assertTrue(pageService.getVersion(large.getId(), 1).isPresent()));
+
+        assertEquals("statements must not depend on the number of translations", smallCount, largeCount);
+        assertTrue("page state and version with translations expected, got " + largeCount + " statements",
+            largeCount <= 2);
+    }
+
+    @Test
+    public void pageDetailUsesConstantStatementCount() throws Exception {
+        CMSPage small = createPage("/small", PUBLISHED, translations(2));
+        CMSPage large = createPage("/large", Collections.nCopies(5, "draft"), translations(2));
+        startNewReadTransaction();
+
+        long smallCount = countStatements(() -> assertTrue(pageService.getPageById(small.getId()).isPresent()));
+        long largeCount = countStatements(() -> assertTrue(pageService.getPageById(large.getId()).isPresent()));
+
+        assertEquals("statements must not depend on the number of versions", smallCount, largeCount);
+        assertTrue("page and version list expected, got " + largeCount + " statements", largeCount <= 2);
+    }
+
+    @Test
+    public void exportUsesConstantStatementCount() throws Exception {
+        List<String> statuses = List.of("draft", "published");
+        createPage("/few/a", statuses, translations(2));
+        IntStream.range(0, 6).forEach(i -> createPage("/many/" + i, statuses, translations(3)));
+        startNewReadTransaction();
+
+        long fewCount = countStatements(() -> assertEquals(1, pageService.getPagesBySlugPrefix("/few/").size()));
+        long manyCount = countStatements(() -> assertEquals(6, pageService.getPagesBySlugPrefix("/many/").size()));
+
+        assertEquals("statements must not depend on the number of pages", fewCount, manyCount);
+        assertTrue("pages and versions with translations expected, got " + manyCount + " statements",
+            manyCount <= 2);
+    }
+
+    private static long countStatements(Runnable action) {
+        Statistics statistics = resetStatistics();
+        action.run();
+        getCurrentEntityManager().clear();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static CMSTranslationDTO[] translations(int count) {
+        List<CMSTranslationDTO> translations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            translations.add(new CMSTranslationDTO("l" + i, "Title " + i, "<p>Content " + i + "</p>"));
+        }
+        return translations.toArray(CMSTranslationDTO[]::new);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.model.CMSPage;
+
+/**
+ * Checks that the validator of the page list is derived from the database and changes with every write.
+ */
+public class CMSPageServiceValidatorTest extends CMSJPATestCase {
+
+    private static final CMSTranslationDTO TRANSLATION = new CMSTranslationDTO("de", "Titel", "<p>Inhalt</p>");
+
+    @Test
+    public void isStableWithoutChanges() throws Exception {
+        createPage("/a", List.of("published"), TRANSLATION);
+        startNewReadTransaction();
+        CMSCacheValidator validator = pageService.getPagesValidator();
+
+        CMSPublishedContentCache.getInstance().invalidateAll();
+        startNewReadTransaction();
+
+        assertEquals("must not depend on process state", validator, pageService.getPagesValidator());
+    }
+
+    @Test
+    public void changesWithEveryWrite() throws Exception {
+        CMSCacheValidator empty = pageService.getPagesValidator();
+        CMSPage page = createPage("/a", List.of("draft"), TRANSLATION);
+        startNewReadTransaction();
+        CMSCacheValidator created = pageService.getPagesValidator();
+        assertNotEquals(empty, created);
+
+        Thread.sleep(5);
+        pageService.createVersion(page.getId(), createVersionDTO("published", TRANSLATION));
+        startNewReadTransaction();
+        CMSCacheValidator published = pageService.getPagesValidator();
+        assertNotEquals(created, published);
+
+        createPage("/b", List.of(), TRANSLATION);
+        startNewReadTransaction();
+        CMSCacheValidator added = pageService.getPagesValidator();
+        assertNotEquals(published, added);
+
+        pageService.deletePagesBySlugPrefix("/a");
+        startNewReadTransaction();
+        assertNotEquals(added, pageService.getPagesValidator());
+    }
+}
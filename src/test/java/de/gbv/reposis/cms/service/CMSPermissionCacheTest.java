@@ -0,0 +1,72 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mycore.backend.jpa.access.MCRACCESSRULE;
+
+import de.gbv.reposis.cms.service.CMSPermissionCache.IPNetwork;
+
+public class CMSPermissionCacheTest extends CMSJPATestCase {
+
+    @Test
+    public void keysIPsByNetwork() {
+        List<IPNetwork> networks = List.of(IPNetwork.parse("10.0.0.0/8"), IPNetwork.parse("192.168.1.128/25"),
+            IPNetwork.parse("2001:db8::/32"));
+
+        assertEquals("10.0.0.0/8", CMSPermissionCache.getIPClass("10.1.2.3", networks));
+        assertEquals("192.168.1.128/25", CMSPermissionCache.getIPClass("192.168.1.200", networks));
+        assertEquals("other", CMSPermissionCache.getIPClass("192.168.1.100", networks));
+        assertEquals("2001:db8::/32", CMSPermissionCache.getIPClass("2001:db8:0:1::5", networks));
+        assertEquals("other", CMSPermissionCache.getIPClass("example.org", networks));
+        assertEquals("192.168.1.100", CMSPermissionCache.getIPClass("192.168.1.100", List.of()));
+    }
+
+    @Test
+    public void clearsDecisionsAfterRuleChanges() throws Exception {
+        CMSPermissionCache cache = CMSPermissionCache.getInstance();
+        AtomicInteger evaluations = new AtomicInteger();
+        cache.checkPermission("cms:page:1", "read", () -> evaluations.incrementAndGet() > 0);
+        cache.checkPermission("cms:page:1", "read", () -> evaluations.incrementAndGet() > 0);
+        assertEquals(1, evaluations.get());
+        String subject = cache.getSubjectKey();
+
+        MCRACCESSRULE rule = new MCRACCESSRULE();
+        rule.setRid("CMS-TEST");
+        rule.setCreator("test");
+        rule.setCreationdate(new Timestamp(System.currentTimeMillis()));
+        rule.setRule("true");
+        rule.setDescription("test rule");
+        getCurrentEntityManager().persist(rule);
+        startNewTransaction();
+
+        assertEquals(0, cache.size());
+        assertNotEquals(subject, cache.getSubjectKey());
+        cache.checkPermission("cms:page:1", "read", () -> evaluations.incrementAndGet() > 0);
+        assertEquals(2, evaluations.get());
+    }
+}
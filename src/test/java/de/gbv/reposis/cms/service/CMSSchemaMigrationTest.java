@@ -0,0 +1,122 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.Test;
+import org.mycore.common.config.MCRConfiguration2;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.dto.CMSTranslationDetailDTO;
+import de.gbv.reposis.cms.dto.CMSVersionDetailDTO;
+
+/**
+ * Runs the schema migration against tables in the state of an installation before contents were moved to their own
+ * table and IDs were generated by sequences. The unquoted SQL has to match the upper case identifiers of H2.
+ */
+public class CMSSchemaMigrationTest extends CMSJPATestCase {
+
+    private static final long LEGACY_ID = 1000;
+
+    @Test
+    public void currentSchemaHasNoPendingSteps() {
+        assertEquals(List.of(), new CMSSchemaMigration().getPendingSteps());
+    }
+
+    @Test
+    public void checkDoesNotConsumeIds() {
+        Session session = getCurrentEntityManager().unwrap(Session.class);
+        long before = session.doReturningWork(this::sumSequenceValues);
+
+        new CMSSchemaMigration().getPendingSteps();
+
+        assertEquals(before, (long) session.doReturningWork(this::sumSequenceValues));
+    }
+
+    @Test
+    public void migratesLegacyTables() throws Exception {
+        getCurrentEntityManager().unwrap(Session.class).doWork(this::createLegacyPage);
+        CMSSchemaMigration migration = new CMSSchemaMigration();
+
+        List<String> pending = migration.getPendingSteps();
+        assertTrue(pending.toString(), pending.contains("Move translation content to cms_translation_content"));
+        assertTrue(pending.toString(),
+            pending.contains("Advance sequence cms_page_seq past the highest ID of cms_page"));
+
+        assertFalse(migration.migrate().isEmpty());
+        assertEquals(List.of(), migration.getPendingSteps());
+        assertEquals("a second run must not apply anything", List.of(), migration.migrate());
+        startNewReadTransaction();
+
+        CMSTranslationDetailDTO translation = pageService.getPublishedTranslationBySlug("/legacy", "de")
+            .orElseThrow();
+        assertEquals("<p>Legacy</p>", translation.getContent());
+        CMSVersionDetailDTO version = pageService.createVersion(LEGACY_ID, createVersionDTO("published",
+            new CMSTranslationDTO("de", "Current", "<p>Current</p>"))).orElseThrow();
+        assertEquals(Integer.valueOf(2), version.getVersionNumber());
+        startNewReadTransaction();
+
+        assertEquals("<p>Current</p>", pageService.getPublishedTranslationBySlug("/legacy", "de")
+            .orElseThrow().getContent());
+    }
+
+    /**
+     * Adds the former content column, which does not accept null, and a page written before the migration: IDs
+     * beyond the sequences, content in the translation table and no head columns.
+     */
+    private void createLegacyPage(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + table("cms_page_version_translation")
+                + " ADD COLUMN content CLOB NOT NULL");
+            statement.execute("INSERT INTO " + table("cms_language") + " (id, name, code) VALUES (" + LEGACY_ID
+                + ", 'de', 'de')");
+            statement.execute("INSERT INTO " + table("cms_page") + " (id, slug, created_at, updated_at) VALUES ("
+                + LEGACY_ID + ", '/legacy', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)");
+            statement.execute("INSERT INTO " + table("cms_page_version")
+                + " (id, page_id, version_number, created_at, created_by, status) VALUES (" + LEGACY_ID + ", "
+                + LEGACY_ID + ", 1, CURRENT_TIMESTAMP, 'legacy', 'PUBLISHED')");
+            statement.execute("INSERT INTO " + table("cms_page_version_translation")
+                + " (id, page_version_id, language_id, title, content) VALUES (" + LEGACY_ID + ", " + LEGACY_ID
+                + ", " + LEGACY_ID + ", 'Legacy', '<p>Legacy</p>')");
+        }
+    }
+
+    private long sumSequenceValues(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+            ResultSet result = statement.executeQuery("SELECT SUM(BASE_VALUE) FROM INFORMATION_SCHEMA.SEQUENCES"
+                + " WHERE SEQUENCE_NAME LIKE 'CMS\\_%'")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static String table(String name) {
+        return MCRConfiguration2.getString("MCR.JPA.DefaultSchema").map(schema -> schema + "." + name).orElse(name);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+import de.gbv.reposis.cms.model.CMSPageStatus;
+import de.gbv.reposis.cms.service.CMSSearchIndex.Document;
+import de.gbv.reposis.cms.service.CMSSearchIndex.Match;
+
+public class CMSSearchIndexTest extends MCRTestCase {
+
+    private final CMSSearchIndex index = CMSSearchIndex.getInstance();
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        index.invalidateAll();
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+        index.invalidateAll();
+        super.tearDown();
+    }
+
+    @Test
+    public void ranksTitleMatchesFirst() {
+        index.rebuild(() -> List.of(
+            document(1L, "/text", "de", "Startseite", "Unsere Öffnungszeiten finden Sie hier."),
+            document(2L, "/title", "de", "Öffnungszeiten", "Montag bis Freitag von 9 bis 17 Uhr."),
+            document(3L, "/other", "de", "Kontakt", "Schreiben Sie uns.")));
+
+        assertEquals(List.of("/title", "/text"), slugs(index.search("de", "öffnungszeiten")));
+    }
+
+    @Test
+    public void ranksFrequentTermsFirst() {
+        index.rebuild(() -> List.of(
+            document(1L, "/once", "de", "Seite", "Bibliothek und Archiv und Museum"),
+            document(2L, "/twice", "de", "Seite", "Bibliothek und Bibliothek und Museum")));
+
+        List<Match> matches = index.search("de", "Bibliothek");
+
+        assertEquals(List.of("/twice", "/once"), slugs(matches));
+        assertTrue(matches.get(0).score() > matches.get(1).score());
+    }
+
+    @Test
+    public void requiresAllTermsAndIgnoresDiacritics() {
+        index.rebuild(() -> List.of(
+            document(1L, "/a", "de", "Über uns", "Die Geschichte der Bibliothek"),
+            document(2L, "/b", "de", "Bibliothek", "Benutzung und Ausleihe")));
+
+        assertEquals(List.of("/a"), slugs(index.search("de", "UBER bibliothek")));
+        assertEquals(List.of(), slugs(index.search("de", "Geschichte Ausleihe")));
+    }
+
+    @Test
+    public void separatesLanguages() {
+        index.rebuild(() -> List.of(
+            document(1L, "/a", "de", "Bibliothek", ""),
+            document(1L, "/a", "en", "Library", "")));
+
+        assertEquals(List.of(), slugs(index.search("de", "library")));
+        assertEquals(List.of("/a"), slugs(index.search("en", "library")));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void removesUnpublishedPages() {
+        index.rebuild(() -> List.of(
+            document(1L, "/a", "de", "Bibliothek", ""),
+            document(1L, "/a", "en", "Library", ""),
+            document(2L, "/b", "de", "Bibliothek", "")));
+
+        index.updatePage(1L, List.of());
+
+        assertEquals(List.of("/b"), slugs(index.search("de", "bibliothek")));
+        assertEquals(List.of(), slugs(index.search("en", "library")));
+        assertEquals(1, index.size());
+
+        index.removePage(2L);
+
+        assertEquals(List.of(), slugs(index.search("de", "bibliothek")));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void replacesDocumentsOfUpdatedPages() {
+        index.rebuild(() -> List.of(document(1L, "/a", "de", "Bibliothek", "")));
+
+        index.updatePage(1L, List.of(document(1L, "/a", "de", "Archiv", "")));
+
+        assertEquals(List.of(), slugs(index.search("de", "bibliothek")));
+        assertEquals(List.of("/a"), slugs(index.search("de", "archiv")));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void ignoresUpdatesBeforeFirstBuild() {
+        index.updatePage(1L, List.of(document(1L, "/a", "de", "Bibliothek", "")));
+
+        assertEquals(0, index.size());
+        assertEquals(List.of(), slugs(index.search("de", "bibliothek")));
+    }
+
+    @Test
+    public void rebuildsStaleIndexInBackground() throws Exception {
+        CMSSearchIndex staleIndex = new CMSSearchIndex(Duration.ZERO);
+        staleIndex.ensureBuilt(() -> List.of(document(1L, "/old", "de", "Bibliothek", "")), () -> {
+            throw new AssertionError("initial build must not run in the background");
+        });
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        staleIndex.ensureBuilt(() -> {
+            throw new AssertionError("rebuild must not run in the searching thread");
+        }, () -> {
+            loading.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(document(2L, "/new", "de", "Bibliothek", ""));
+        });
+
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("/old"), slugs(staleIndex.search("de", "bibliothek")));
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!slugs(staleIndex.search("de", "bibliothek")).equals(List.of("/new"))) {
+            if (System.nanoTime() > deadline) {
+                fail("index was not rebuilt");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static Document document(Long pageId, String slug, String language, String title, String text) {
+        return new Document(pageId, slug, language, 1, CMSPageStatus.PUBLISHED, title, text);
+    }
+
+    private static List<String> slugs(List<Match> matches) {
+        return matches.stream().map(match -> match.document().slug()).toList();
+    }
+}
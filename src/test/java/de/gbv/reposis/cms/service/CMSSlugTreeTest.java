@@ -0,0 +1,155 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+import de.gbv.reposis.cms.service.CMSSlugTree.SlugNode;
+
+public class CMSSlugTreeTest extends MCRTestCase {
+
+    private final CMSSlugTree tree = CMSSlugTree.getInstance();
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        tree.invalidateAll();
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+        tree.invalidateAll();
+        super.tearDown();
+    }
+
+    @Test
+    public void buildsNestedSlugs() {
+        tree.ensureBuilt(() -> Map.of("/", 1L, "/about", 2L, "/about/team", 3L, "/contact", 4L));
+
+        SlugNode root = tree.getSubtree("/", 2).orElseThrow();
+
+        assertEquals(new SlugNode("/", 1L, List.of(
+            new SlugNode("/about", 2L, List.of(new SlugNode("/about/team", 3L, List.of()))),
+            new SlugNode("/contact", 4L, List.of()))), root);
+        assertEquals(4, tree.size());
+    }
+
+    @Test
+    public void limitsDepth() {
+        tree.ensureBuilt(() -> Map.of("/about", 2L, "/about/team", 3L));
+
+        assertEquals(new SlugNode("/about", 2L, List.of()), tree.getSubtree("/about", 0).orElseThrow());
+        assertEquals(List.of(new SlugNode("/about", 2L, List.of())),
+            tree.getSubtree("/", 1).orElseThrow().children());
+    }
+
+    @Test
+    public void keepsIntermediateNodesWithoutPage() {
+        tree.ensureBuilt(() -> Map.of("/a/b/c", 1L));
+
+        SlugNode root = tree.getSubtree("/", 3).orElseThrow();
+
+        assertNull(root.pageId());
+        assertEquals(new SlugNode("/a", null, List.of(new SlugNode("/a/b", null,
+            List.of(new SlugNode("/a/b/c", 1L, List.of()))))), root.children().getFirst());
+        assertEquals(new SlugNode("/a/b", null, List.of()), tree.getSubtree("/a/b", 0).orElseThrow());
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void insertsAndRemovesSlugs() {
+        tree.ensureBuilt(Map::of);
+
+        tree.put("/about", 1L);
+        tree.put("/about/team/berlin", 2L);
+
+        assertNull(tree.getSubtree("/about/team", 1).orElseThrow().pageId());
+        assertEquals(2, tree.size());
+
+        tree.remove("/about/team/berlin");
+
+        assertTrue("intermediate nodes without pages must be removed", tree.getSubtree("/about/team", 1).isEmpty());
+        assertEquals(new SlugNode("/about", 1L, List.of()), tree.getSubtree("/about", 1).orElseThrow());
+
+        tree.put("/about/team", 3L);
+        tree.remove("/about");
+
+        assertEquals(new SlugNode("/about", null, List.of(new SlugNode("/about/team", 3L, List.of()))),
+            tree.getSubtree("/about", 1).orElseThrow());
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void replacesPageIdOfExistingSlug() {
+        tree.ensureBuilt(() -> Map.of("/about", 1L));
+
+        tree.put("/about", 2L);
+
+        assertEquals(2L, tree.getSubtree("/about", 0).orElseThrow().pageId().longValue());
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void returnsEmptyForUnknownSlugs() {
+        tree.ensureBuilt(() -> Map.of("/about", 1L));
+
+        assertTrue(tree.getSubtree("/contact", 1).isEmpty());
+        assertTrue(tree.getSubtree("/about/team", 1).isEmpty());
+        assertTrue(tree.getSubtree("/abo", 1).isEmpty());
+    }
+
+    @Test
+    public void ignoresUpdatesBeforeFirstBuild() {
+        tree.put("/about", 1L);
+
+        assertTrue(tree.getSubtree("/", 1).isEmpty());
+        tree.ensureBuilt(Map::of);
+        assertTrue(tree.getSubtree("/about", 0).isEmpty());
+    }
+
+    @Test
+    public void buildsOnlyOnceWithinMaxAge() {
+        AtomicInteger loads = new AtomicInteger();
+        tree.ensureBuilt(() -> {
+            loads.incrementAndGet();
+            return Map.of("/about", 1L);
+        });
+        tree.ensureBuilt(() -> {
+            loads.incrementAndGet();
+            return Map.of();
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(1, tree.size());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gbv.reposis.cms.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import de.gbv.reposis.cms.model.CMSPage;
+import de.gbv.reposis.cms.model.CMSPageStatus;
+
+/**
+ * Permission service for tests, which grants every permission on every page except for denied slugs, without
+ * consulting the ACL engine.
+ */
+class CMSTestPermissionService extends CMSPermissionService {
+
+    private final Set<String> deniedPermissionIds = new HashSet<>();
+
+    /**
+     * Denies all permissions on the page with the given slug.
+     */
+    void deny(String slug) {
+        deniedPermissionIds.add(CMS_PAGE_PERMISSION_PREFIX + slug);
+    }
+
+    @Override
+    public boolean checkPermission(CMSPage page, String permission) {
+        return !deniedPermissionIds.contains(page.getPermissionId());
+    }
+
+    @Override
+    public boolean canReadPage(String permissionId, CMSPageStatus lastNonDraftStatus) {
+        return !deniedPermissionIds.contains(permissionId);
+    }
+
+    @Override
+    public boolean canReadVersion(String permissionId, CMSPageStatus status) {
+        return !deniedPermissionIds.contains(permissionId);
+    }
+}
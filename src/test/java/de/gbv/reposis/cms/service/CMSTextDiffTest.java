@@ -0,0 +1,125 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.gbv.reposis.cms.service.CMSTextDiff.Edit;
+
+public class CMSTextDiffTest {
+
+    private static final int MAX_EDITS = 100;
+
+    @Test
+    public void encodesInsertion() {
+        List<Edit> edits = CMSTextDiff.diff("<p>Hallo Welt</p>", "<p>Hallo schöne Welt</p>", MAX_EDITS).orElseThrow();
+
+        assertEquals(List.of(new Edit(Edit.Type.EQUAL, "<p>Hallo "), new Edit(Edit.Type.INSERT, "schöne "),
+            new Edit(Edit.Type.EQUAL, "Welt</p>")), edits);
+        assertEquals("=9;+7:schöne =8;", CMSTextDiff.encode(edits));
+    }
+
+    @Test
+    public void encodesDeletion() {
+        List<Edit> edits = CMSTextDiff.diff("<p>Hallo schöne Welt</p>", "<p>Hallo Welt</p>", MAX_EDITS).orElseThrow();
+
+        assertEquals("=9;-7;=8;", CMSTextDiff.encode(edits));
+    }
+
+    @Test
+    public void appliesDelta() {
+        assertEquals("abXYZef", CMSTextDiff.apply("abcdef", "=2;-2;+3:XYZ=2;"));
+        assertEquals("=;+:", CMSTextDiff.apply("", "+4:=;+:"));
+        assertEquals("", CMSTextDiff.apply("abc", "-3;"));
+    }
+
+    @Test
+    public void roundTrips() {
+        assertRoundTrip("<p>Hallo Welt</p>", "<p>Hallo Welt</p>");
+        assertRoundTrip("", "<p>Neu</p>");
+        assertRoundTrip("<p>Alt</p>", "");
+        assertRoundTrip("<h1>Titel</h1>\n<p>Erster Absatz.</p>\n<p>Zweiter Absatz.</p>",
+            "<h1>Neuer Titel</h1>\n<p>Zweiter Absatz mit =3; und +2:xy.</p>\n<p>Dritter Absatz.</p>");
+        assertRoundTrip("<p>Kein Tag am Ende", "<p>Kein <b>Tag</b> am Ende <");
+    }
+
+    @Test
+    public void returnsEmptyForTooManyEdits() {
+        assertTrue(CMSTextDiff.diff("a b c d e", "v w x y z", 4).isEmpty());
+        assertTrue(CMSTextDiff.diff("a b c d e", "v w x y z", 10).isPresent());
+    }
+
+    @Test
+    public void emitsNoEditsForTooManyEdits() {
+        List<Edit> edits = new ArrayList<>();
+
+        assertFalse(CMSTextDiff.diff("a b c d e", "v w x y z", 4, edits::add));
+        assertEquals(List.of(), edits);
+    }
+
+    @Test
+    public void findsMinimalEditsInLongTexts() {
+        StringBuilder oldText = new StringBuilder();
+        StringBuilder newText = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            oldText.append("<p>Absatz ").append(i % 100).append("</p>");
+            newText.append("<p>Absatz ").append(i % 100).append(i % 1000 == 0 ? " neu" : "").append("</p>");
+        }
+        List<Edit> edits = new ArrayList<>();
+
+        assertTrue(CMSTextDiff.diff(oldText.toString(), newText.toString(), 20, edits::add));
+        List<Edit> insertions = edits.stream().filter(edit -> edit.type() != Edit.Type.EQUAL).toList();
+        assertEquals(10, insertions.size());
+        assertTrue(insertions.stream().allMatch(edit -> edit.equals(new Edit(Edit.Type.INSERT, " neu"))));
+        assertRoundTrip(oldText.toString(), newText.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCopyBeyondOldText() {
+        CMSTextDiff.apply("abc", "=4;");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedInsertion() {
+        CMSTextDiff.apply("abc", "=3;+5:xy");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownOperation() {
+        CMSTextDiff.apply("abc", "*3;");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingLength() {
+        CMSTextDiff.apply("abc", "=;");
+    }
+
+    private static void assertRoundTrip(String oldText, String newText) {
+        String delta = CMSTextDiff.encode(CMSTextDiff.diff(oldText, newText, MAX_EDITS).orElseThrow());
+        assertEquals(newText, CMSTextDiff.apply(oldText, delta));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See https://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package de.gbv.reposis.cms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+import de.gbv.reposis.cms.dto.CMSTranslationDTO;
+import de.gbv.reposis.cms.dto.CMSVersionDetailDTO;
+import de.gbv.reposis.cms.model.CMSPageStatus;
+
+public class CMSVersionCacheTest extends MCRTestCase {
+
+    private final CMSVersionCache cache = CMSVersionCache.getInstance();
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        cache.invalidateAll();
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+        cache.invalidateAll();
+        super.tearDown();
+    }
+
+    @Test
+    public void dropsVersionsLoadedBeforeInvalidation() {
+        long generation = cache.getGeneration();
+        cache.invalidatePage(1L);
+        CMSVersionCache.Entry entry = cache.putVersion(generation, 10L, 1L, CMSPageStatus.DRAFT, createVersion());
+
+        assertEquals("Hello", entry.version().getTranslations().getFirst().getTitle());
+        assertTrue(cache.getVersion(1L, 1).isEmpty());
+        assertTrue(cache.getVersion(10L).isEmpty());
+
+        cache.putVersion(cache.getGeneration(), 10L, 1L, CMSPageStatus.DRAFT, createVersion());
+        assertTrue(cache.getVersion(1L, 1).isPresent());
+    }
+
+    @Test
+    public void returnsCopiesOfCachedVersions() {
+        cache.putVersion(cache.getGeneration(), 10L, 1L, CMSPageStatus.DRAFT, createVersion());
+
+        CMSVersionDetailDTO version = cache.getVersion(10L).orElseThrow().version();
+        version.setComment("changed");
+        version.getTranslations().getFirst().setTitle("changed");
+
+        CMSVersionDetailDTO cached = cache.getVersion(10L).orElseThrow().version();
+        assertEquals("comment", cached.getComment());
+        assertEquals("Hello", cached.getTranslations().getFirst().getTitle());
+    }
+
+    private static CMSVersionDetailDTO createVersion() {
+        CMSVersionDetailDTO version = new CMSVersionDetailDTO();
+        version.setVersionNumber(1);
+        version.setStatus("draft");
+        version.setComment("comment");
+        version.setTranslations(List.of(new CMSTranslationDTO("de", "Hello", "<p>Hallo</p>")));
+        return version;
+    }
+}